@@ -0,0 +1,36 @@
+/*
+ * JNI bindings for com.nimglass.NativeBlur
+ */
+#include <jni.h>
+#include <android/bitmap.h>
+
+#include "stack_blur.h"
+
+JNIEXPORT jboolean JNICALL
+Java_com_nimglass_NativeBlur_nativeStackBlur(JNIEnv *env, jclass clazz, jobject bitmap, jint radius) {
+    AndroidBitmapInfo info;
+    if (AndroidBitmap_getInfo(env, bitmap, &info) != ANDROID_BITMAP_RESULT_SUCCESS) {
+        return JNI_FALSE;
+    }
+
+    int format;
+    if (info.format == ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        format = NIMGLASS_FORMAT_RGBA_8888;
+    } else if (info.format == ANDROID_BITMAP_FORMAT_RGB_565) {
+        format = NIMGLASS_FORMAT_RGB_565;
+    } else {
+        return JNI_FALSE;
+    }
+
+    void *pixels = NULL;
+    if (AndroidBitmap_lockPixels(env, bitmap, &pixels) != ANDROID_BITMAP_RESULT_SUCCESS) {
+        return JNI_FALSE;
+    }
+
+    int result = nimglass_stack_blur((uint8_t *) pixels, format,
+                                     (int) info.width, (int) info.height,
+                                     (int) info.stride, (int) radius);
+
+    AndroidBitmap_unlockPixels(env, bitmap);
+    return result == 0 ? JNI_TRUE : JNI_FALSE;
+}
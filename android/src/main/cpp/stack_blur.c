@@ -0,0 +1,320 @@
+/*
+ * nim-glass native stack blur
+ *
+ * Same algorithm as PixelBuffer.stackBlur: a horizontal pass into a scratch
+ * buffer, then a vertical pass back into the pixels. The per-channel sums
+ * of the Java version become one 4-lane vector per pixel, and the division
+ * by the kernel weight an exact multiply-high by a reciprocal.
+ */
+
+/* posix_memalign is POSIX.1-2001; strict C99 builds do not declare it otherwise */
+#define _POSIX_C_SOURCE 200112L
+
+#include "stack_blur.h"
+
+#include <stdlib.h>
+#include <string.h>
+
+/*
+ * Largest radius for which the reciprocal division below is exact
+ * (needs 255 * divsum^2 < 2^32). BlurHelper never passes more than 25.
+ */
+#define NIMGLASS_MAX_RADIUS 63
+
+#if defined(__ARM_NEON) || defined(__ARM_NEON__)
+
+#include <arm_neon.h>
+
+typedef uint32x4_t vec4;
+
+static inline vec4 v_zero(void) {
+    return vdupq_n_u32(0);
+}
+
+static inline vec4 v_load(const uint8_t *p) {
+    uint32_t packed;
+    memcpy(&packed, p, 4);
+    uint16x8_t wide = vmovl_u8(vreinterpret_u8_u32(vdup_n_u32(packed)));
+    return vmovl_u16(vget_low_u16(wide));
+}
+
+static inline void v_store(uint8_t *p, vec4 a) {
+    uint16x4_t narrow = vmovn_u32(a);
+    uint8x8_t bytes = vmovn_u16(vcombine_u16(narrow, narrow));
+    uint32_t packed = vget_lane_u32(vreinterpret_u32_u8(bytes), 0);
+    memcpy(p, &packed, 4);
+}
+
+static inline vec4 v_add(vec4 a, vec4 b) {
+    return vaddq_u32(a, b);
+}
+
+static inline vec4 v_sub(vec4 a, vec4 b) {
+    return vsubq_u32(a, b);
+}
+
+static inline vec4 v_mul(vec4 a, uint32_t k) {
+    return vmulq_n_u32(a, k);
+}
+
+/* (n * m) >> 32 per lane */
+static inline vec4 v_div(vec4 n, uint32_t m) {
+    uint32x2_t mul = vdup_n_u32(m);
+    uint64x2_t lo = vmull_u32(vget_low_u32(n), mul);
+    uint64x2_t hi = vmull_u32(vget_high_u32(n), mul);
+    return vcombine_u32(vshrn_n_u64(lo, 32), vshrn_n_u64(hi, 32));
+}
+
+#elif defined(__SSE4_1__)
+
+#include <smmintrin.h>
+
+typedef __m128i vec4;
+
+static inline vec4 v_zero(void) {
+    return _mm_setzero_si128();
+}
+
+static inline vec4 v_load(const uint8_t *p) {
+    int packed;
+    memcpy(&packed, p, 4);
+    return _mm_cvtepu8_epi32(_mm_cvtsi32_si128(packed));
+}
+
+static inline void v_store(uint8_t *p, vec4 a) {
+    __m128i words = _mm_packus_epi32(a, a);
+    int packed = _mm_cvtsi128_si32(_mm_packus_epi16(words, words));
+    memcpy(p, &packed, 4);
+}
+
+static inline vec4 v_add(vec4 a, vec4 b) {
+    return _mm_add_epi32(a, b);
+}
+
+static inline vec4 v_sub(vec4 a, vec4 b) {
+    return _mm_sub_epi32(a, b);
+}
+
+static inline vec4 v_mul(vec4 a, uint32_t k) {
+    return _mm_mullo_epi32(a, _mm_set1_epi32((int) k));
+}
+
+/* (n * m) >> 32 per lane: even lanes, then odd lanes shifted into place */
+static inline vec4 v_div(vec4 n, uint32_t m) {
+    __m128i mul = _mm_set1_epi32((int) m);
+    __m128i even = _mm_srli_epi64(_mm_mul_epu32(n, mul), 32);
+    __m128i odd = _mm_srli_epi64(_mm_mul_epu32(_mm_srli_epi64(n, 32), mul), 32);
+    return _mm_or_si128(even, _mm_slli_epi64(odd, 32));
+}
+
+#else
+
+typedef struct {
+    uint32_t v[4];
+} vec4;
+
+static inline vec4 v_zero(void) {
+    vec4 r = {{0, 0, 0, 0}};
+    return r;
+}
+
+static inline vec4 v_load(const uint8_t *p) {
+    vec4 r = {{p[0], p[1], p[2], p[3]}};
+    return r;
+}
+
+static inline void v_store(uint8_t *p, vec4 a) {
+    for (int i = 0; i < 4; i++) {
+        p[i] = (uint8_t) a.v[i];
+    }
+}
+
+static inline vec4 v_add(vec4 a, vec4 b) {
+    for (int i = 0; i < 4; i++) {
+        a.v[i] += b.v[i];
+    }
+    return a;
+}
+
+static inline vec4 v_sub(vec4 a, vec4 b) {
+    for (int i = 0; i < 4; i++) {
+        a.v[i] -= b.v[i];
+    }
+    return a;
+}
+
+static inline vec4 v_mul(vec4 a, uint32_t k) {
+    for (int i = 0; i < 4; i++) {
+        a.v[i] *= k;
+    }
+    return a;
+}
+
+static inline vec4 v_div(vec4 n, uint32_t m) {
+    for (int i = 0; i < 4; i++) {
+        n.v[i] = (uint32_t) (((uint64_t) n.v[i] * m) >> 32);
+    }
+    return n;
+}
+
+#endif
+
+/* RGB_565 pixel -> 8-bit channels (alpha lane unused) */
+static inline vec4 v_load_565(const uint8_t *p) {
+    uint16_t packed;
+    memcpy(&packed, p, 2);
+    uint32_t r = (packed >> 11) & 0x1f;
+    uint32_t g = (packed >> 5) & 0x3f;
+    uint32_t b = packed & 0x1f;
+    uint8_t expanded[4] = {
+        (uint8_t) ((r << 3) | (r >> 2)),
+        (uint8_t) ((g << 2) | (g >> 4)),
+        (uint8_t) ((b << 3) | (b >> 2)),
+        0
+    };
+    return v_load(expanded);
+}
+
+/* 8-bit channels -> RGB_565 pixel, rounded */
+static inline void v_store_565(uint8_t *p, vec4 a) {
+    uint8_t channels[4];
+    v_store(channels, a);
+    uint32_t r = (channels[0] * 31u + 127u) / 255u;
+    uint32_t g = (channels[1] * 63u + 127u) / 255u;
+    uint32_t b = (channels[2] * 31u + 127u) / 255u;
+    uint16_t packed = (uint16_t) ((r << 11) | (g << 5) | b);
+    memcpy(p, &packed, 2);
+}
+
+static inline vec4 load_pixel(const uint8_t *p, int format) {
+    return format == NIMGLASS_FORMAT_RGB_565 ? v_load_565(p) : v_load(p);
+}
+
+static inline void store_pixel(uint8_t *p, vec4 a, int format) {
+    if (format == NIMGLASS_FORMAT_RGB_565) {
+        v_store_565(p, a);
+    } else {
+        v_store(p, a);
+    }
+}
+
+/*
+ * One stack blur pass over `lines` lines of `len` pixels each.
+ * Steps are in bytes, so the same code runs rows (horizontal pass)
+ * and columns (vertical pass). Always inlined so each call site is
+ * specialized for its constant formats.
+ */
+static inline __attribute__((always_inline))
+void blur_lines(const uint8_t *src, int src_format,
+                uint8_t *dst, int dst_format,
+                int lines, int len,
+                int src_line_step, int src_px_step,
+                int dst_line_step, int dst_px_step,
+                int radius, uint32_t div_mul, vec4 *stack) {
+    const int div = radius + radius + 1;
+    const int last = len - 1;
+
+    for (int line = 0; line < lines; line++) {
+        const uint8_t *in = src + (size_t) line * src_line_step;
+        uint8_t *out = dst + (size_t) line * dst_line_step;
+
+        vec4 sum = v_zero();
+        vec4 sum_in = v_zero();
+        vec4 sum_out = v_zero();
+
+        for (int i = -radius; i <= radius; i++) {
+            int index = i < 0 ? 0 : (i > last ? last : i);
+            vec4 p = load_pixel(in + (size_t) index * src_px_step, src_format);
+            stack[i + radius] = p;
+            sum = v_add(sum, v_mul(p, (uint32_t) (radius + 1 - abs(i))));
+            if (i > 0) {
+                sum_in = v_add(sum_in, p);
+            } else {
+                sum_out = v_add(sum_out, p);
+            }
+        }
+
+        int stack_pointer = radius;
+        for (int x = 0; x < len; x++) {
+            store_pixel(out + (size_t) x * dst_px_step, v_div(sum, div_mul), dst_format);
+
+            sum = v_sub(sum, sum_out);
+
+            vec4 *sir = &stack[(stack_pointer - radius + div) % div];
+            sum_out = v_sub(sum_out, *sir);
+
+            int next = x + radius + 1;
+            if (next > last) {
+                next = last;
+            }
+            *sir = load_pixel(in + (size_t) next * src_px_step, src_format);
+
+            sum_in = v_add(sum_in, *sir);
+            sum = v_add(sum, sum_in);
+
+            stack_pointer = (stack_pointer + 1) % div;
+            sir = &stack[stack_pointer];
+
+            sum_out = v_add(sum_out, *sir);
+            sum_in = v_sub(sum_in, *sir);
+        }
+    }
+}
+
+int nimglass_stack_blur(uint8_t *pixels, int format, int width, int height, int stride, int radius) {
+    if (radius < 1 || width <= 0 || height <= 0) {
+        return 0;
+    }
+    if (radius > NIMGLASS_MAX_RADIUS) {
+        radius = NIMGLASS_MAX_RADIUS;
+    }
+
+    const int div = radius + radius + 1;
+    const int px_size = format == NIMGLASS_FORMAT_RGB_565 ? 2 : 4;
+    const uint64_t divsum = (uint64_t) (radius + 1) * (radius + 1);
+    const uint32_t div_mul = (uint32_t) ((UINT64_C(1) << 32) / divsum + 1);
+
+    void *scratch = NULL;
+    void *stack = NULL;
+    if (posix_memalign(&scratch, 16, (size_t) width * height * 4) != 0) {
+        return -1;
+    }
+    if (posix_memalign(&stack, 16, (size_t) div * sizeof(vec4)) != 0) {
+        free(scratch);
+        return -1;
+    }
+
+    /* Rows: pixels -> scratch (tightly packed, always 8 bits per channel) */
+    /* Columns: scratch -> pixels */
+    if (format == NIMGLASS_FORMAT_RGB_565) {
+        blur_lines(pixels, NIMGLASS_FORMAT_RGB_565,
+                   (uint8_t *) scratch, NIMGLASS_FORMAT_RGBA_8888,
+                   height, width,
+                   stride, px_size,
+                   width * 4, 4,
+                   radius, div_mul, (vec4 *) stack);
+        blur_lines((const uint8_t *) scratch, NIMGLASS_FORMAT_RGBA_8888,
+                   pixels, NIMGLASS_FORMAT_RGB_565,
+                   width, height,
+                   4, width * 4,
+                   px_size, stride,
+                   radius, div_mul, (vec4 *) stack);
+    } else {
+        blur_lines(pixels, NIMGLASS_FORMAT_RGBA_8888,
+                   (uint8_t *) scratch, NIMGLASS_FORMAT_RGBA_8888,
+                   height, width,
+                   stride, px_size,
+                   width * 4, 4,
+                   radius, div_mul, (vec4 *) stack);
+        blur_lines((const uint8_t *) scratch, NIMGLASS_FORMAT_RGBA_8888,
+                   pixels, NIMGLASS_FORMAT_RGBA_8888,
+                   width, height,
+                   4, width * 4,
+                   px_size, stride,
+                   radius, div_mul, (vec4 *) stack);
+    }
+
+    free(stack);
+    free(scratch);
+    return 0;
+}
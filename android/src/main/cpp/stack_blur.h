@@ -0,0 +1,43 @@
+/*
+ * nim-glass native stack blur
+ *
+ * SIMD port of PixelBuffer.stackBlur (Mario Klingemann's stack blur).
+ * One pixel's four channels are processed as one 4 x 32-bit vector:
+ * NEON on ARM, SSE4.1 on x86_64, plain C elsewhere.
+ */
+#ifndef NIMGLASS_STACK_BLUR_H
+#define NIMGLASS_STACK_BLUR_H
+
+#include <stdint.h>
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+/* Pixel formats accepted by nimglass_stack_blur */
+#define NIMGLASS_FORMAT_RGBA_8888 0
+#define NIMGLASS_FORMAT_RGB_565 1
+
+/*
+ * Blur pixels in place.
+ *
+ * RGBA_8888: channel order does not matter (channels are independent).
+ * For opaque pixels the result matches PixelBuffer.stackBlur exactly.
+ * RGB_565: opaque, 16-bit pixels. Channels are expanded to 8 bits for the
+ * passes (intermediate rows stay 8-bit) and rounded back on output.
+ *
+ * @param pixels Pixel rows, each `stride` bytes apart
+ * @param format NIMGLASS_FORMAT_RGBA_8888 or NIMGLASS_FORMAT_RGB_565
+ * @param width  Width in pixels
+ * @param height Height in pixels
+ * @param stride Row stride in bytes
+ * @param radius Blur radius (>= 1, values < 1 are a no-op)
+ * @return 0 on success, -1 if scratch memory could not be allocated
+ */
+int nimglass_stack_blur(uint8_t *pixels, int format, int width, int height, int stride, int radius);
+
+#ifdef __cplusplus
+}
+#endif
+
+#endif /* NIMGLASS_STACK_BLUR_H */
@@ -0,0 +1,779 @@
+package com.nimglass;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.graphics.SurfaceTexture;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.view.PixelCopy;
+import android.view.Surface;
+import android.view.SurfaceView;
+import android.view.TextureView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import com.facebook.react.uimanager.ReactZIndexedViewGroup;
+
+import java.util.ArrayList;
+
+/**
+ * BackdropCapture - Captures what is drawn behind a glass view
+ * 
+ * Walks from the root view down to the glass view and draws, clipped to
+ * the glass view's rect, only what lies behind it: each ancestor's
+ * background and the siblings below the path, in the order the group
+ * draws them (custom drawing order such as React's zIndex, then Z).
+ * Nothing in front of the glass - its own content and later siblings - is
+ * drawn, and subtrees outside the rect are rejected before drawing.
+ * 
+ * A software draw cannot see hardware-rendered content: a SurfaceView
+ * (maps, video, camera preview) leaves a transparent hole and a
+ * TextureView draws nothing. On API 26+ these are filled in: SurfaceViews
+ * are read with PixelCopy - only the part behind the glass, downscaled,
+ * asynchronously - and composited behind the drawn content like the
+ * window compositor does. TextureViews are drawn at their own place in
+ * the drawing order, so views stacked above them stay on top, from a
+ * kept copy of their last frame; the copy is refreshed off the main
+ * thread, and only when the TextureView latched a new frame. The window
+ * surface itself is not copied: it already contains the glass view,
+ * whose blur would feed back into itself.
+ * 
+ * Main thread only.
+ */
+final class BackdropCapture {
+    
+    /**
+     * Receives a capture that waited for SurfaceView copies
+     */
+    interface Callback {
+        void onBackdropCaptured(@NonNull Bitmap capture);
+        
+        /**
+         * A TextureView behind the glass has a new frame for the next capture
+         */
+        void onSurfacesChanged();
+    }
+    
+    // Copies from TextureView surfaces block their thread below API 34, so they run here
+    private static HandlerThread sCopyThread;
+    private static Handler sCopyHandler;
+    
+    private final ArrayList<View> mPath = new ArrayList<>();
+    // Children in drawing order, one list per depth of drawWithTextures
+    private final ArrayList<ArrayList<View>> mOrderedChildren = new ArrayList<>();
+    private final ArrayList<View> mSurfaces = new ArrayList<>();
+    private final ArrayList<TextureView> mTextureViews = new ArrayList<>();
+    // Last copied frame of each TextureView behind the glass
+    private final ArrayList<TextureFrame> mTextureFrames = new ArrayList<>();
+    private Callback mCallback;
+    private final Rect mGlassRect = new Rect();
+    private final Rect mSurfaceRect = new Rect();
+    private final int[] mLocation = new int[2];
+    private final Canvas mCanvas = new Canvas();
+    private final Paint mBehindPaint;
+    private final Paint mOverPaint;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    
+    // Capture waiting for SurfaceView copies (null when none is pending)
+    private Request mPending;
+    // Recycled capture requests and copies, so captures with SurfaceViews do not allocate
+    private final ArrayList<Request> mFreeRequests = new ArrayList<>();
+    private final ArrayList<Copy> mFreeCopies = new ArrayList<>();
+    private boolean mHasSurfaceViews = false;
+    
+    BackdropCapture() {
+        mBehindPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        mBehindPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_OVER));
+        mOverPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    }
+    
+    /**
+     * Whether SurfaceView/TextureView content can be captured (API 26+)
+     */
+    static boolean supportsSurfaces() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O;
+    }
+    
+    /**
+     * Whether a capture is waiting for SurfaceView copies
+     */
+    boolean isPending() {
+        return mPending != null;
+    }
+    
+    /**
+     * Whether the last capture contained SurfaceViews, whose content changes
+     * without any signal to the glass view
+     */
+    boolean hasSurfaceViews() {
+        return mHasSurfaceViews;
+    }
+    
+    /**
+     * Whether the last capture contained TextureViews (see refreshTextures)
+     */
+    boolean hasTextureViews() {
+        return !mTextureFrames.isEmpty();
+    }
+    
+    /**
+     * Capture what is behind a glass view, at the glass view's size times scale
+     * 
+     * @param scale Capture scale (0-1], e.g. to fit a pixel budget
+     * @param config Capture config; RGB_565 is only honoured without hardware surfaces
+     * @param downsampleFactor Surfaces are copied this much smaller (they are blurred anyway)
+     * @return The capture, or null if it failed or waits for SurfaceView
+     *         copies (the callback then receives it)
+     */
+    @Nullable
+    Bitmap capture(
+            @NonNull View glass,
+            float scale,
+            @NonNull Bitmap.Config config,
+            int downsampleFactor,
+            @NonNull Callback callback
+    ) {
+        glass.getLocationInWindow(mLocation);
+        mGlassRect.set(
+                mLocation[0],
+                mLocation[1],
+                mLocation[0] + glass.getWidth(),
+                mLocation[1] + glass.getHeight()
+        );
+        
+        // Ancestors from the root view down to the glass view
+        mPath.clear();
+        View view = glass;
+        ViewParent parent = glass.getParent();
+        while (parent instanceof View) {
+            mPath.add(0, view);
+            view = (View) parent;
+            parent = view.getParent();
+        }
+        mPath.add(0, view);
+        
+        mSurfaces.clear();
+        mTextureViews.clear();
+        if (supportsSurfaces()) {
+            for (int i = 0; i + 1 < mPath.size(); i++) {
+                collectSurfacesBehind((ViewGroup) mPath.get(i), mPath.get(i + 1));
+            }
+        }
+        mHasSurfaceViews = !mSurfaces.isEmpty();
+        retainTextureFrames();
+        mCallback = callback;
+        
+        // Surface holes need alpha to composite the surfaces behind
+        Bitmap capture = BitmapPool.acquire(
+                Math.max(1, Math.round(glass.getWidth() * scale)),
+                Math.max(1, Math.round(glass.getHeight() * scale)),
+                mHasSurfaceViews || !mTextureViews.isEmpty() ? Bitmap.Config.ARGB_8888 : config
+        );
+        Canvas canvas = mCanvas;
+        canvas.setBitmap(capture);
+        canvas.scale(
+                (float) capture.getWidth() / glass.getWidth(),
+                (float) capture.getHeight() / glass.getHeight()
+        );
+        
+        View root = mPath.get(0);
+        root.getLocationInWindow(mLocation);
+        canvas.translate(mLocation[0] - mGlassRect.left, mLocation[1] - mGlassRect.top);
+        for (int i = 0; i + 1 < mPath.size(); i++) {
+            drawBehind(canvas, (ViewGroup) mPath.get(i), mPath.get(i + 1), downsampleFactor);
+        }
+        mPath.clear();
+        mTextureViews.clear();
+        
+        boolean pending = !mSurfaces.isEmpty() && captureSurfaces(capture, downsampleFactor, callback);
+        canvas.setBitmap(null);
+        return pending ? null : capture;
+    }
+    
+    /**
+     * Drop the pending capture, if any (its copies are discarded when they arrive)
+     */
+    void cancel() {
+        if (mPending != null) {
+            mPending.cancelled = true;
+            mPending = null;
+        }
+    }
+    
+    /**
+     * Cancel the pending capture and drop the kept TextureView frames
+     */
+    void release() {
+        cancel();
+        for (int i = 0; i < mTextureFrames.size(); i++) {
+            dropTextureFrame(mTextureFrames.get(i));
+        }
+        mTextureFrames.clear();
+        mCallback = null;
+    }
+    
+    /**
+     * Copy the TextureViews that latched a new frame since their last copy;
+     * onSurfacesChanged follows once a copy lands (one timestamp read per
+     * TextureView when nothing changed)
+     */
+    void refreshTextures() {
+        if (!supportsSurfaces()) {
+            return;
+        }
+        for (int i = 0; i < mTextureFrames.size(); i++) {
+            TextureFrame frame = mTextureFrames.get(i);
+            SurfaceTexture texture = frame.view.getSurfaceTexture();
+            if (texture != null && !texture.isReleased() && texture.getTimestamp() != frame.timestamp) {
+                requestTextureCopy(frame);
+            }
+        }
+    }
+    
+    /**
+     * Draw a group's background and its children below next, then move
+     * the canvas into next (the caller restores the canvas)
+     */
+    private void drawBehind(Canvas canvas, ViewGroup group, View next, int downsampleFactor) {
+        drawBackground(canvas, group);
+        
+        ArrayList<View> children = orderChildren(group, 0);
+        for (int i = 0; i < children.size(); i++) {
+            View child = children.get(i);
+            if (child == next) {
+                break;
+            }
+            drawChild(canvas, group, child, 1, downsampleFactor);
+        }
+        children.clear();
+        
+        enterChild(canvas, group, next);
+    }
+    
+    /**
+     * Draw one child of a group; subtrees holding collected TextureViews are
+     * drawn child by child
+     */
+    private void drawChild(Canvas canvas, ViewGroup group, View child, int depth, int downsampleFactor) {
+        if (child.getVisibility() != View.VISIBLE || child.getAlpha() <= 0f) {
+            return;
+        }
+        
+        int save = canvas.save();
+        enterChild(canvas, group, child);
+        if (!quickReject(canvas, child.getWidth(), child.getHeight())) {
+            if (child.getAlpha() < 1f) {
+                canvas.saveLayerAlpha(0, 0, child.getWidth(), child.getHeight(),
+                        (int) (child.getAlpha() * 255));
+            }
+            if (child instanceof TextureView && mTextureViews.contains(child)) {
+                drawTextureView((TextureView) child, canvas, downsampleFactor);
+            } else if (child instanceof ViewGroup && containsTextureView(child)) {
+                drawWithTextures(canvas, (ViewGroup) child, depth, downsampleFactor);
+            } else {
+                child.draw(canvas);
+            }
+        }
+        canvas.restoreToCount(save);
+    }
+    
+    /**
+     * Draw a group holding TextureViews child by child, so each frame lands
+     * at its place in the drawing order (the group's own onDraw content and
+     * foreground are skipped; layout containers have none)
+     */
+    private void drawWithTextures(Canvas canvas, ViewGroup group, int depth, int downsampleFactor) {
+        drawBackground(canvas, group);
+        
+        ArrayList<View> children = orderChildren(group, depth);
+        for (int i = 0; i < children.size(); i++) {
+            drawChild(canvas, group, children.get(i), depth + 1, downsampleFactor);
+        }
+        children.clear();
+    }
+    
+    /**
+     * Whether a (0, 0, width, height) rect lies outside the canvas clip
+     */
+    @SuppressWarnings("deprecation")
+    private static boolean quickReject(Canvas canvas, int width, int height) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return canvas.quickReject(0, 0, width, height);
+        }
+        return canvas.quickReject(0, 0, width, height, Canvas.EdgeType.BW);
+    }
+    
+    private static void drawBackground(Canvas canvas, View view) {
+        Drawable background = view.getBackground();
+        if (background != null) {
+            canvas.save();
+            canvas.translate(view.getScrollX(), view.getScrollY());
+            background.draw(canvas);
+            canvas.restore();
+        }
+    }
+    
+    /**
+     * Whether a collected TextureView is inside a view
+     */
+    private boolean containsTextureView(View view) {
+        for (int i = 0; i < mTextureViews.size(); i++) {
+            ViewParent parent = mTextureViews.get(i).getParent();
+            while (parent instanceof View) {
+                if (parent == view) {
+                    return true;
+                }
+                parent = parent.getParent();
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Transform (and clip) the canvas from a group's coordinates into a child's
+     */
+    private static void enterChild(Canvas canvas, ViewGroup group, View child) {
+        canvas.translate(child.getLeft() - group.getScrollX(), child.getTop() - group.getScrollY());
+        if (!child.getMatrix().isIdentity()) {
+            canvas.concat(child.getMatrix());
+        }
+        if (group.getClipChildren()) {
+            canvas.clipRect(0, 0, child.getWidth(), child.getHeight());
+        }
+    }
+    
+    /**
+     * Children of a group in the order it draws them: its custom drawing
+     * order (React zIndex), then by Z like the hardware renderer
+     * 
+     * @param depth Nesting level; each level fills its own list
+     */
+    private ArrayList<View> orderChildren(ViewGroup group, int depth) {
+        while (mOrderedChildren.size() <= depth) {
+            mOrderedChildren.add(new ArrayList<View>());
+        }
+        ArrayList<View> children = mOrderedChildren.get(depth);
+        children.clear();
+        
+        int count = group.getChildCount();
+        for (int i = 0; i < count; i++) {
+            View child = group.getChildAt(drawingIndex(group, i, count));
+            int index = children.size();
+            while (index > 0 && children.get(index - 1).getZ() > child.getZ()) {
+                index--;
+            }
+            children.add(index, child);
+        }
+        return children;
+    }
+    
+    /**
+     * Child index drawn at a drawing position
+     */
+    private static int drawingIndex(ViewGroup group, int position, int count) {
+        int index = position;
+        if (group instanceof ReactZIndexedViewGroup) {
+            index = ((ReactZIndexedViewGroup) group).getZIndexMappedChildIndex(position);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            index = group.getChildDrawingOrder(position);
+        }
+        return index >= 0 && index < count ? index : position;
+    }
+    
+    /**
+     * Collect visible surfaces overlapping the glass among a group's
+     * children below next
+     */
+    private void collectSurfacesBehind(ViewGroup group, View next) {
+        ArrayList<View> children = orderChildren(group, 0);
+        for (int i = 0; i < children.size(); i++) {
+            View child = children.get(i);
+            if (child == next) {
+                break;
+            }
+            collectSurfaces(child);
+        }
+        children.clear();
+    }
+    
+    private void collectSurfaces(View view) {
+        if (view.getVisibility() != View.VISIBLE) {
+            return;
+        }
+        if (view instanceof SurfaceView || view instanceof TextureView) {
+            view.getLocationInWindow(mLocation);
+            mSurfaceRect.set(
+                    mLocation[0],
+                    mLocation[1],
+                    mLocation[0] + view.getWidth(),
+                    mLocation[1] + view.getHeight()
+            );
+            if (!Rect.intersects(mSurfaceRect, mGlassRect)) {
+                return;
+            }
+            if (view instanceof TextureView) {
+                mTextureViews.add((TextureView) view);
+            } else {
+                mSurfaces.add(view);
+            }
+            return;
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                collectSurfaces(group.getChildAt(i));
+            }
+        }
+    }
+    
+    /**
+     * Request copies of the collected SurfaceViews into the capture
+     * 
+     * @return true if SurfaceView copies are pending
+     */
+    private boolean captureSurfaces(Bitmap capture, int downsampleFactor, Callback callback) {
+        if (!supportsSurfaces()) {
+            mSurfaces.clear();
+            return false;
+        }
+        float scaleX = (float) capture.getWidth() / mGlassRect.width();
+        float scaleY = (float) capture.getHeight() / mGlassRect.height();
+        
+        Request request = obtainRequest(capture, callback);
+        for (int i = 0; i < mSurfaces.size(); i++) {
+            View surface = mSurfaces.get(i);
+            surface.getLocationInWindow(mLocation);
+            mSurfaceRect.set(
+                    mLocation[0],
+                    mLocation[1],
+                    mLocation[0] + surface.getWidth(),
+                    mLocation[1] + surface.getHeight()
+            );
+            if (!mSurfaceRect.intersect(mGlassRect)) {
+                continue;
+            }
+            
+            Copy copy = obtainCopy(request);
+            // Destination in capture pixels
+            copy.destination.set(
+                    (int) ((mSurfaceRect.left - mGlassRect.left) * scaleX),
+                    (int) ((mSurfaceRect.top - mGlassRect.top) * scaleY),
+                    (int) Math.ceil((mSurfaceRect.right - mGlassRect.left) * scaleX),
+                    (int) Math.ceil((mSurfaceRect.bottom - mGlassRect.top) * scaleY)
+            );
+            // Source in the surface's own coordinates
+            copy.source.set(mSurfaceRect);
+            copy.source.offset(-mLocation[0], -mLocation[1]);
+            
+            if (requestCopy((SurfaceView) surface, downsampleFactor, copy)) {
+                request.pending++;
+            } else {
+                mFreeCopies.add(copy);
+            }
+        }
+        mSurfaces.clear();
+        
+        if (request.pending == 0) {
+            mFreeRequests.add(request);
+            return false;
+        }
+        mPending = request;
+        return true;
+    }
+    
+    /**
+     * Draw a TextureView's kept frame, requesting a copy if it has none at
+     * this size yet (the copy shows up in a later capture)
+     */
+    private void drawTextureView(TextureView textureView, Canvas canvas, int downsampleFactor) {
+        TextureFrame frame = findTextureFrame(textureView);
+        if (frame == null || !textureView.isAvailable()) {
+            return;
+        }
+        frame.width = Math.max(1, textureView.getWidth() / downsampleFactor);
+        frame.height = Math.max(1, textureView.getHeight() / downsampleFactor);
+        if (frame.bitmap == null
+                || frame.bitmap.getWidth() != frame.width
+                || frame.bitmap.getHeight() != frame.height) {
+            requestTextureCopy(frame);
+        }
+        if (frame.bitmap != null) {
+            // The canvas is already in the TextureView's coordinates
+            mSurfaceRect.set(0, 0, textureView.getWidth(), textureView.getHeight());
+            canvas.drawBitmap(frame.bitmap, null, mSurfaceRect, mOverPaint);
+        }
+    }
+    
+    @Nullable
+    private TextureFrame findTextureFrame(TextureView textureView) {
+        for (int i = 0; i < mTextureFrames.size(); i++) {
+            if (mTextureFrames.get(i).view == textureView) {
+                return mTextureFrames.get(i);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Keep frames for the collected TextureViews, dropping the others
+     */
+    private void retainTextureFrames() {
+        for (int i = mTextureFrames.size() - 1; i >= 0; i--) {
+            TextureFrame frame = mTextureFrames.get(i);
+            if (!mTextureViews.contains(frame.view)) {
+                mTextureFrames.remove(i);
+                dropTextureFrame(frame);
+            }
+        }
+        for (int i = 0; i < mTextureViews.size(); i++) {
+            TextureView textureView = mTextureViews.get(i);
+            if (findTextureFrame(textureView) == null) {
+                TextureFrame frame = new TextureFrame();
+                frame.view = textureView;
+                mTextureFrames.add(frame);
+            }
+        }
+    }
+    
+    /**
+     * Copy the latest buffer queued to a TextureView's surface, off the main
+     * thread (at most one copy per TextureView in flight)
+     */
+    @RequiresApi(Build.VERSION_CODES.O)
+    private void requestTextureCopy(TextureFrame frame) {
+        SurfaceTexture texture = frame.view.getSurfaceTexture();
+        if (frame.copy != null || texture == null || texture.isReleased()) {
+            return;
+        }
+        if (frame.texture != texture) {
+            // TextureView replaced its SurfaceTexture
+            if (frame.surface != null) {
+                frame.surface.release();
+            }
+            frame.texture = texture;
+            frame.surface = new Surface(texture);
+        }
+        frame.timestamp = texture.getTimestamp();
+        frame.copy = BitmapPool.acquire(frame.width, frame.height, Bitmap.Config.ARGB_8888);
+        frame.cookie = System.identityHashCode(frame.copy);
+        NimGlassTrace.beginAsync("NimGlass:textureCopy", frame.cookie);
+        copyHandler().post(frame);
+    }
+    
+    private void onTextureCopyFinished(TextureFrame frame, int result) {
+        NimGlassTrace.endAsync("NimGlass:textureCopy", frame.cookie);
+        Bitmap copy = frame.copy;
+        frame.copy = null;
+        if (frame.view == null) {
+            // Dropped while copying
+            BitmapPool.release(copy);
+            dropTextureFrame(frame);
+            return;
+        }
+        if (result != PixelCopy.SUCCESS) {
+            // E.g. nothing queued yet: keep the previous frame
+            BitmapPool.release(copy);
+            return;
+        }
+        BitmapPool.release(frame.bitmap);
+        frame.bitmap = copy;
+        if (mCallback != null) {
+            mCallback.onSurfacesChanged();
+        }
+    }
+    
+    /**
+     * Release a frame's bitmap and surface (once its copy, if any, has finished)
+     */
+    private static void dropTextureFrame(TextureFrame frame) {
+        frame.view = null;
+        if (frame.copy != null) {
+            return;
+        }
+        BitmapPool.release(frame.bitmap);
+        frame.bitmap = null;
+        if (frame.surface != null) {
+            frame.surface.release();
+            frame.surface = null;
+        }
+        frame.texture = null;
+    }
+    
+    private static synchronized Handler copyHandler() {
+        if (sCopyHandler == null) {
+            sCopyThread = new HandlerThread("NimGlassCopy");
+            sCopyThread.start();
+            sCopyHandler = new Handler(sCopyThread.getLooper());
+        }
+        return sCopyHandler;
+    }
+    
+    @RequiresApi(Build.VERSION_CODES.O)
+    private boolean requestCopy(SurfaceView surfaceView, int downsampleFactor, Copy copy) {
+        if (!surfaceView.getHolder().getSurface().isValid()) {
+            return false;
+        }
+        
+        // Surface buffers may be sized independently of the view
+        Rect source = copy.source;
+        Rect frame = surfaceView.getHolder().getSurfaceFrame();
+        if (frame.width() != surfaceView.getWidth() || frame.height() != surfaceView.getHeight()) {
+            float scaleX = (float) frame.width() / surfaceView.getWidth();
+            float scaleY = (float) frame.height() / surfaceView.getHeight();
+            source.set(
+                    (int) (source.left * scaleX),
+                    (int) (source.top * scaleY),
+                    (int) Math.ceil(source.right * scaleX),
+                    (int) Math.ceil(source.bottom * scaleY)
+            );
+        }
+        if (source.isEmpty()) {
+            return false;
+        }
+        
+        copy.bitmap = BitmapPool.acquire(
+                Math.max(1, copy.destination.width() / downsampleFactor),
+                Math.max(1, copy.destination.height() / downsampleFactor),
+                Bitmap.Config.ARGB_8888
+        );
+        copy.cookie = System.identityHashCode(copy.bitmap);
+        NimGlassTrace.beginAsync("NimGlass:pixelCopy", copy.cookie);
+        try {
+            PixelCopy.request(surfaceView, source, copy.bitmap, copy, mHandler);
+            return true;
+        } catch (IllegalArgumentException e) {
+            NimGlassTrace.endAsync("NimGlass:pixelCopy", copy.cookie);
+            BitmapPool.release(copy.bitmap);
+            copy.bitmap = null;
+            return false;
+        }
+    }
+    
+    private void onCopyFinished(Copy copy, int result) {
+        Request request = copy.request;
+        NimGlassTrace.endAsync("NimGlass:pixelCopy", copy.cookie);
+        if (result == PixelCopy.SUCCESS && !request.cancelled) {
+            // Behind the drawn content: views above the SurfaceView stay on top
+            mCanvas.setBitmap(request.capture);
+            mCanvas.drawBitmap(copy.bitmap, null, copy.destination, mBehindPaint);
+            mCanvas.setBitmap(null);
+        }
+        BitmapPool.release(copy.bitmap);
+        copy.bitmap = null;
+        copy.request = null;
+        mFreeCopies.add(copy);
+        
+        if (--request.pending > 0) {
+            return;
+        }
+        Bitmap capture = request.capture;
+        Callback callback = request.callback;
+        boolean cancelled = request.cancelled;
+        request.capture = null;
+        request.callback = null;
+        mFreeRequests.add(request);
+        if (cancelled) {
+            BitmapPool.release(capture);
+            return;
+        }
+        mPending = null;
+        callback.onBackdropCaptured(capture);
+    }
+    
+    private Request obtainRequest(Bitmap capture, Callback callback) {
+        Request request = mFreeRequests.isEmpty()
+                ? new Request()
+                : mFreeRequests.remove(mFreeRequests.size() - 1);
+        request.capture = capture;
+        request.callback = callback;
+        request.pending = 0;
+        request.cancelled = false;
+        return request;
+    }
+    
+    private Copy obtainCopy(Request request) {
+        Copy copy = mFreeCopies.isEmpty()
+                ? new Copy()
+                : mFreeCopies.remove(mFreeCopies.size() - 1);
+        copy.request = request;
+        return copy;
+    }
+    
+    /**
+     * One capture and its outstanding SurfaceView copies (pooled)
+     */
+    private static final class Request {
+        Bitmap capture;
+        Callback callback;
+        int pending = 0;
+        boolean cancelled = false;
+    }
+    
+    /**
+     * A TextureView's last copied frame; runs its copy on the copy thread
+     */
+    @RequiresApi(Build.VERSION_CODES.O)
+    private final class TextureFrame implements Runnable, PixelCopy.OnPixelCopyFinishedListener {
+        // Null once dropped
+        TextureView view;
+        SurfaceTexture texture;
+        Surface surface;
+        // Frame drawn into captures, and the copy in flight
+        Bitmap bitmap;
+        Bitmap copy;
+        int width;
+        int height;
+        // SurfaceTexture timestamp when the last copy was requested
+        long timestamp = Long.MIN_VALUE;
+        int cookie;
+        
+        @Override
+        public void run() {
+            try {
+                PixelCopy.request(surface, copy, this, mHandler);
+            } catch (IllegalArgumentException e) {
+                // Surface abandoned in the meantime
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onTextureCopyFinished(TextureFrame.this, PixelCopy.ERROR_SOURCE_INVALID);
+                    }
+                });
+            }
+        }
+        
+        @Override
+        public void onPixelCopyFinished(int result) {
+            onTextureCopyFinished(this, result);
+        }
+    }
+    
+    /**
+     * One SurfaceView copy and where it goes in the capture (pooled)
+     */
+    @RequiresApi(Build.VERSION_CODES.O)
+    private final class Copy implements PixelCopy.OnPixelCopyFinishedListener {
+        final Rect source = new Rect();
+        final Rect destination = new Rect();
+        Request request;
+        Bitmap bitmap;
+        int cookie;
+        
+        @Override
+        public void onPixelCopyFinished(int result) {
+            onCopyFinished(this, result);
+        }
+    }
+}
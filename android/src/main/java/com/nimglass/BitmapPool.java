@@ -0,0 +1,117 @@
+package com.nimglass;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+
+/**
+ * BitmapPool - Process-wide pool of reusable bitmaps
+ * 
+ * Capture bitmaps are returned here instead of being recycled, and
+ * reconfigured to the next requested size when their allocation is large
+ * enough. The pool is bounded in bytes and safe to use from background
+ * threads (see BlurHelper.prewarm).
+ */
+public final class BitmapPool {
+    
+    private static final long MAX_POOL_BYTES =
+            Math.min(Runtime.getRuntime().maxMemory() / 8, 32L * 1024 * 1024);
+    
+    private static final ArrayList<Bitmap> sPool = new ArrayList<>();
+    private static long sPoolBytes = 0;
+    
+    private BitmapPool() {
+    }
+    
+    /**
+     * Get a cleared, mutable bitmap of the given size, reusing a pooled one if possible
+     */
+    @NonNull
+    public static Bitmap acquire(int width, int height, @NonNull Bitmap.Config config) {
+        Bitmap bitmap = take(width, height, config);
+        if (bitmap == null) {
+            return Bitmap.createBitmap(width, height, config);
+        }
+        try {
+            bitmap.reconfigure(width, height, config);
+        } catch (IllegalArgumentException e) {
+            bitmap.recycle();
+            return Bitmap.createBitmap(width, height, config);
+        }
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+    
+    /**
+     * Return a bitmap to the pool. The caller must not use it afterwards.
+     */
+    public static void release(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        if (!bitmap.isMutable() || bitmap.getAllocationByteCount() > MAX_POOL_BYTES) {
+            bitmap.recycle();
+            return;
+        }
+        
+        synchronized (sPool) {
+            // Evict oldest entries to stay within the byte budget
+            while (!sPool.isEmpty() && sPoolBytes + bitmap.getAllocationByteCount() > MAX_POOL_BYTES) {
+                Bitmap evicted = sPool.remove(0);
+                sPoolBytes -= evicted.getAllocationByteCount();
+                evicted.recycle();
+            }
+            sPool.add(bitmap);
+            sPoolBytes += bitmap.getAllocationByteCount();
+        }
+    }
+    
+    /**
+     * Pre-allocate a pooled bitmap so the first capture does not allocate
+     */
+    public static void prefill(int width, int height, @NonNull Bitmap.Config config) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        release(Bitmap.createBitmap(width, height, config));
+    }
+    
+    /**
+     * Remove the smallest pooled bitmap that can hold the requested size
+     */
+    @Nullable
+    private static Bitmap take(int width, int height, Bitmap.Config config) {
+        long needed = (long) width * height * bytesPerPixel(config);
+        synchronized (sPool) {
+            int best = -1;
+            for (int i = 0; i < sPool.size(); i++) {
+                int size = sPool.get(i).getAllocationByteCount();
+                if (size >= needed && (best < 0 || size < sPool.get(best).getAllocationByteCount())) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                return null;
+            }
+            Bitmap bitmap = sPool.remove(best);
+            sPoolBytes -= bitmap.getAllocationByteCount();
+            return bitmap;
+        }
+    }
+    
+    private static int bytesPerPixel(Bitmap.Config config) {
+        switch (config) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.nimglass;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * BlurDiskCache - On-disk cache of blurred bitmaps as raw pixel files
+ * 
+ * Each entry is a 24-byte header (magic, width, height, config, write time)
+ * followed by the bitmap's raw pixels. Entries are written and read through
+ * memory-mapped file channels, straight to and from the bitmap, so a hit
+ * needs no image decoding and no blur. Writes are flushed to a temp file
+ * that is then renamed into place, so readers never see partial entries,
+ * even after a crash.
+ * 
+ * Keys carry a version of the source where one is cheap to get (size and
+ * mtime of local files, the app's update time for bundled images); other
+ * sources (network, content providers) expire after MAX_AGE_MS, so an
+ * image changed at the same URL is picked up again.
+ * 
+ * Blocking I/O; use from a background thread.
+ */
+final class BlurDiskCache {
+    
+    private static final String DIRECTORY = "nimglass-blur";
+    private static final String TEMP_SUFFIX = ".tmp";
+    
+    static final int MAGIC = 0x4e474232; // "NGB2"
+    static final int HEADER_BYTES = 24;
+    private static final int CONFIG_ARGB_8888 = 1;
+    private static final int CONFIG_RGB_565 = 2;
+    
+    static final long MAX_CACHE_BYTES = 64L * 1024 * 1024;
+    static final long MAX_AGE_MS = 24L * 60 * 60 * 1000;
+    
+    // Entries are downsampled blurs of sources decoded to at most 1024 px; anything larger is corrupt
+    static final int MAX_DIMENSION = 4096;
+    
+    private final File mDirectory;
+    private final long mMaxBytes;
+    
+    BlurDiskCache(@NonNull Context context) {
+        this(new File(context.getCacheDir(), DIRECTORY), MAX_CACHE_BYTES);
+    }
+    
+    BlurDiskCache(@NonNull File directory, long maxBytes) {
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+    }
+    
+    /**
+     * Cache key for an image source blurred with the given parameters
+     * 
+     * @param sourceVersion Changes when the source does (see sourceVersion), or ""
+     */
+    @NonNull
+    static String key(@NonNull String sourceUri, @NonNull String sourceVersion, float blurRadius, int downsampleFactor) {
+        String raw = sourceUri + "|" + sourceVersion + "|" + blurRadius + "|" + downsampleFactor;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(raw.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+                hex.append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(raw.hashCode());
+        }
+    }
+    
+    /**
+     * Version of a source, where it is cheap to get: size and mtime of a
+     * local file, the app's last update for a bundled image, else ""
+     * (entries then expire after MAX_AGE_MS). Blocking; file system access.
+     */
+    @NonNull
+    static String sourceVersion(@NonNull Context context, @NonNull String sourceUri) {
+        if (sourceUri.startsWith("http://") || sourceUri.startsWith("https://")
+                || sourceUri.startsWith("content:")) {
+            return "";
+        }
+        if (sourceUri.startsWith("file:") || sourceUri.startsWith("/")) {
+            String path = sourceUri.startsWith("/") ? sourceUri : Uri.parse(sourceUri).getPath();
+            if (path == null) {
+                return "";
+            }
+            File file = new File(path);
+            return file.length() + ":" + file.lastModified();
+        }
+        try {
+            return Long.toString(context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0).lastUpdateTime);
+        } catch (PackageManager.NameNotFoundException e) {
+            return "";
+        }
+    }
+    
+    /**
+     * Read a cached bitmap, or null on a miss, an expired or a corrupt entry
+     */
+    @Nullable
+    Bitmap get(@NonNull String key) {
+        File file = new File(mDirectory, key);
+        if (!file.isFile()) {
+            return null;
+        }
+        
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                file.delete();
+                return null;
+            }
+            
+            // Validate the header against the file length before allocating anything
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int width = buffer.getInt(4);
+            int height = buffer.getInt(8);
+            Bitmap.Config config = configForId(buffer.getInt(12));
+            long written = buffer.getLong(16);
+            if (System.currentTimeMillis() - written > MAX_AGE_MS) {
+                file.delete();
+                return null;
+            }
+            if (buffer.getInt(0) != MAGIC || config == null
+                    || width <= 0 || width > MAX_DIMENSION || height <= 0 || height > MAX_DIMENSION
+                    || size - HEADER_BYTES != (long) width * height * bytesPerPixel(config)) {
+                file.delete();
+                return null;
+            }
+            
+            Bitmap bitmap;
+            try {
+                bitmap = Bitmap.createBitmap(width, height, config);
+            } catch (OutOfMemoryError e) {
+                // Valid entry, just no memory for it right now
+                return null;
+            }
+            
+            buffer.position(HEADER_BYTES);
+            bitmap.copyPixelsFromBuffer(buffer);
+            
+            // Most recently used entries survive trimming
+            file.setLastModified(System.currentTimeMillis());
+            return bitmap;
+        } catch (IOException | RuntimeException e) {
+            file.delete();
+            return null;
+        }
+    }
+    
+    /**
+     * Store a bitmap (ARGB_8888 or RGB_565). Failures are ignored.
+     */
+    void put(@NonNull String key, @NonNull Bitmap bitmap) {
+        int configId = idForConfig(bitmap.getConfig());
+        if (configId == 0 || (!mDirectory.isDirectory() && !mDirectory.mkdirs())) {
+            return;
+        }
+        
+        File temp = new File(mDirectory, key + TEMP_SUFFIX);
+        long size = HEADER_BYTES + (long) bitmap.getByteCount();
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+             FileChannel channel = raf.getChannel()) {
+            raf.setLength(size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC);
+            buffer.putInt(bitmap.getWidth());
+            buffer.putInt(bitmap.getHeight());
+            buffer.putInt(configId);
+            buffer.putLong(System.currentTimeMillis());
+            bitmap.copyPixelsToBuffer(buffer);
+            // On disk before the rename publishes the entry
+            buffer.force();
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            return;
+        }
+        
+        if (!temp.renameTo(new File(mDirectory, key))) {
+            temp.delete();
+            return;
+        }
+        trim();
+    }
+    
+    /**
+     * Delete least recently used entries beyond the size budget
+     */
+    private void trim() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= mMaxBytes) {
+            return;
+        }
+        
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (total <= mMaxBytes) {
+                break;
+            }
+            if (file.getName().endsWith(TEMP_SUFFIX)) {
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+    
+    private static int idForConfig(Bitmap.Config config) {
+        if (config == Bitmap.Config.ARGB_8888) {
+            return CONFIG_ARGB_8888;
+        }
+        if (config == Bitmap.Config.RGB_565) {
+            return CONFIG_RGB_565;
+        }
+        return 0;
+    }
+    
+    private static int bytesPerPixel(Bitmap.Config config) {
+        return config == Bitmap.Config.RGB_565 ? 2 : 4;
+    }
+    
+    @Nullable
+    private static Bitmap.Config configForId(int id) {
+        switch (id) {
+            case CONFIG_ARGB_8888:
+                return Bitmap.Config.ARGB_8888;
+            case CONFIG_RGB_565:
+                return Bitmap.Config.RGB_565;
+            default:
+                return null;
+        }
+    }
+}
@@ -1,29 +1,194 @@
 package com.nimglass;
 
+import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.os.Build;
 import android.renderscript.Allocation;
 import android.renderscript.Element;
 import android.renderscript.RenderScript;
 import android.renderscript.ScriptIntrinsicBlur;
+import android.renderscript.Type;
+import android.util.DisplayMetrics;
+import android.util.Log;
 import android.view.View;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
 /**
  * BlurHelper - Utility class for applying blur effects to bitmaps
  * 
  * Provides efficient blur implementations:
  * - RenderScript for hardware-accelerated blur (API 17+)
- * - Stack blur fallback for older devices
+ * - Native SIMD stack blur where RenderScript is missing or broken
+ * - Java stack blur as the last resort
+ * 
+ * RGB_565 input (opaque backdrops) stays 16-bit through the whole pipeline
+ * and is blurred by the native kernel, or by the Java stack blur without
+ * alpha arithmetic. RenderScript's blur intrinsic only handles 8888.
  */
 public class BlurHelper {
     
+    /**
+     * Blur implementations, in order of preference
+     */
+    public enum Engine {
+        RENDERSCRIPT,
+        NATIVE,
+        JAVA
+    }
+    
+    private static final String TAG = "NimGlass";
+    
     private static final float MAX_BLUR_RADIUS = 25f;
     
+    // Pass limit for pixel-budget blurs (as many as blur() runs at radius 100)
+    private static final int MAX_BUDGET_PASSES = 6;
+    
+    // Size of the probe bitmap blurred during warm-up
+    private static final int WARMUP_SIZE = 64;
+    
+    // Shared RenderScript context (creation is expensive, so one per process)
+    private static final Object sRenderScriptLock = new Object();
+    private static volatile RenderScript sRenderScript;
+    private static volatile boolean sRenderScriptUnavailable = false;
+    
+    private static final Object sWarmupLock = new Object();
+    private static volatile boolean sWarmedUp = false;
+    
+    // prewarmAsync calls queue up on one warm-up thread
+    private static final ExecutorService sWarmupExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(runnable, "NimGlassPrewarm");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+    
+    // Java stack blur buffers, reused by every blur on the same thread
+    private static final ThreadLocal<PixelBuffer> sPixelBuffers = new ThreadLocal<PixelBuffer>() {
+        @Override
+        protected PixelBuffer initialValue() {
+            return new PixelBuffer();
+        }
+    };
+    
+    // Canvas the downsample and copy steps draw with, reused by every blur on the same thread
+    private static final ThreadLocal<Canvas> sScaleCanvases = new ThreadLocal<Canvas>() {
+        @Override
+        protected Canvas initialValue() {
+            return new Canvas();
+        }
+    };
+    private static final Paint sScalePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private static final Paint sCopyPaint = new Paint();
+    
+    // Blur intrinsic and ping-pong allocations, reused while the size stays the same
+    // (guarded by sBlurLock: prewarm blurs off the UI thread)
+    private static final Object sBlurLock = new Object();
+    private static ScriptIntrinsicBlur sBlurScript;
+    private static Allocation sBlurInput;
+    private static Allocation sBlurOutput;
+    
+    /**
+     * Get the shared RenderScript context, creating it on first use
+     * 
+     * Only waits while another thread is creating the context, never for
+     * blur work running on it (e.g. prewarm).
+     * 
+     * @return RenderScript context, or null if unavailable on this device
+     */
+    @Nullable
+    public static RenderScript getRenderScript(@NonNull Context context) {
+        RenderScript rs = sRenderScript;
+        if (rs != null || sRenderScriptUnavailable
+                || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return rs;
+        }
+        synchronized (sRenderScriptLock) {
+            if (sRenderScript == null && !sRenderScriptUnavailable) {
+                try {
+                    sRenderScript = RenderScript.create(context.getApplicationContext());
+                } catch (Exception e) {
+                    sRenderScriptUnavailable = true;
+                }
+            }
+            return sRenderScript;
+        }
+    }
+    
+    /**
+     * Warm up the blur engine so the first glass view does not pay for it
+     * 
+     * Creates the shared RenderScript context, blurs a tiny probe bitmap to
+     * prime the RenderScript and stack blur code paths, and pre-fills the
+     * bitmap pool with a screen-sized capture bitmap. Blocking; call it off
+     * the UI thread (see prewarmAsync). Subsequent calls return immediately.
+     */
+    public static void prewarm(@NonNull Context context) {
+        synchronized (sWarmupLock) {
+            if (sWarmedUp) {
+                return;
+            }
+            
+            NimGlassTrace.begin("NimGlass:prewarm");
+            try {
+                RenderScript rs = getRenderScript(context);
+                
+                Bitmap probe = Bitmap.createBitmap(WARMUP_SIZE, WARMUP_SIZE, Bitmap.Config.ARGB_8888);
+                probe.eraseColor(Color.GRAY);
+                
+                // Multi-pass radius: downsample, RenderScript passes and upscale
+                blur(rs, probe, 60f, 4).recycle();
+                // Software fallbacks (native kernel and Java); their results are pooled
+                BitmapPool.release(softwareBlur(probe, 4, 1, false));
+                BitmapPool.release(stackBlur(probe, 4));
+                probe.recycle();
+                
+                DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+                BitmapPool.prefill(metrics.widthPixels, metrics.heightPixels, Bitmap.Config.ARGB_8888);
+            } catch (Exception e) {
+                Log.w(TAG, "Blur warm-up failed", e);
+            } finally {
+                NimGlassTrace.end();
+            }
+            
+            sWarmedUp = true;
+        }
+    }
+    
+    /**
+     * Run prewarm on the shared warm-up thread
+     * 
+     * @param onComplete Called on the warm-up thread when done (can be null)
+     */
+    public static void prewarmAsync(@NonNull final Context context, @Nullable final Runnable onComplete) {
+        if (sWarmedUp) {
+            if (onComplete != null) {
+                onComplete.run();
+            }
+            return;
+        }
+        
+        sWarmupExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                prewarm(context);
+                if (onComplete != null) {
+                    onComplete.run();
+                }
+            }
+        });
+    }
+    
     /**
      * Apply blur to a bitmap using the best available method
      * 
@@ -43,13 +208,282 @@ public class BlurHelper {
             @NonNull Bitmap bitmap,
             float blurRadius,
             int downsampleFactor
+    ) {
+        return blur(context, bitmap, blurRadius, downsampleFactor, true);
+    }
+    
+    /**
+     * Apply blur to a bitmap, optionally keeping the downsampled result
+     * 
+     * Skipping the upscale saves memory when the result is drawn scaled
+     * to its destination rect anyway (bilinear filtering at draw time).
+     * 
+     * @param scaleToSource Scale the result back to the source bitmap size
+     * @return Blurred bitmap (never the source bitmap itself)
+     */
+    public static Bitmap blur(
+            @Nullable RenderScript context,
+            @NonNull Bitmap bitmap,
+            float blurRadius,
+            int downsampleFactor,
+            boolean scaleToSource
     ) {
         // Clamp input values
         blurRadius = Math.max(1f, Math.min(100f, blurRadius));
         downsampleFactor = Math.max(1, Math.min(16, downsampleFactor));
         
-        // AGGRESSIVE downsampling for deeper blur
-        // Higher blur = more downsampling = stronger effect
+        int effectiveDownsample = effectiveDownsample(blurRadius, downsampleFactor);
+        
+        // Scale down for performance and blur intensity, then blur in
+        // multiple passes for DEEP blur effect
+        Bitmap outputBitmap = downsampleAndBlur(
+                context,
+                bitmap,
+                Math.max(1, bitmap.getWidth() / effectiveDownsample),
+                Math.max(1, bitmap.getHeight() / effectiveDownsample),
+                passRadius(blurRadius),
+                passCount(blurRadius)
+        );
+        
+        // Scale back up - this ALSO adds blur effect due to interpolation
+        if (scaleToSource && effectiveDownsample > 1) {
+            NimGlassTrace.begin("NimGlass:upscale", bitmap.getWidth(), bitmap.getHeight());
+            Bitmap downsampled = outputBitmap;
+            outputBitmap = Bitmap.createScaledBitmap(
+                    downsampled, 
+                    bitmap.getWidth(), 
+                    bitmap.getHeight(), 
+                    true  // Bilinear filtering adds smoothness
+            );
+            // The downsampled blur came from the pool; the upscaled copy is the caller's
+            BitmapPool.release(downsampled);
+            NimGlassTrace.end();
+        }
+        
+        return outputBitmap;
+    }
+    
+    /**
+     * Scale a bitmap down to a size and blur it in passes
+     * 
+     * The Java engine does both on this thread's PixelBuffer, between one
+     * read of the source and one write of the result. The other engines
+     * blur a bilinear downsample drawn into a pooled bitmap: RenderScript
+     * has to upload it anyway, and the native kernel blurs it in place.
+     * 
+     * @return Blurred bitmap (never the source bitmap itself)
+     */
+    private static Bitmap downsampleAndBlur(
+            @Nullable RenderScript context,
+            @NonNull Bitmap bitmap,
+            int width,
+            int height,
+            float radius,
+            int passes
+    ) {
+        boolean scaled = width != bitmap.getWidth() || height != bitmap.getHeight();
+        if (scaled && getEngine(context, bitmap.getConfig()) == Engine.JAVA) {
+            return stackBlur(bitmap, width, height, (int) radius, passes, false);
+        }
+        
+        Bitmap input = scaled ? downsample(bitmap, width, height) : bitmap;
+        // Only blur in place once we own the bitmap (never the caller's source)
+        Bitmap output = blurPasses(context, input, radius, passes, input != bitmap);
+        if (input != bitmap && output != input) {
+            BitmapPool.release(input);
+        }
+        return output;
+    }
+    
+    /**
+     * Scale a bitmap down into a pooled bitmap of the same depth
+     * 
+     * Bilinear, like createScaledBitmap, but without allocating once the
+     * pool holds a large enough bitmap.
+     */
+    private static Bitmap downsample(@NonNull Bitmap bitmap, int width, int height) {
+        NimGlassTrace.begin("NimGlass:downsample", width, height);
+        Bitmap scaled = BitmapPool.acquire(
+                width,
+                height,
+                bitmap.getConfig() == Bitmap.Config.RGB_565 ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888
+        );
+        Canvas canvas = sScaleCanvases.get();
+        canvas.setBitmap(scaled);
+        canvas.save();
+        canvas.scale((float) width / bitmap.getWidth(), (float) height / bitmap.getHeight());
+        canvas.drawBitmap(bitmap, 0, 0, sScalePaint);
+        canvas.restore();
+        canvas.setBitmap(null);
+        NimGlassTrace.end();
+        return scaled;
+    }
+    
+    /**
+     * Copy a bitmap's pixels into a pooled bitmap of the same size and config
+     * 
+     * The pooled bitmap is cleared, so drawing over it copies the pixels exactly.
+     */
+    private static Bitmap pooledCopy(@NonNull Bitmap bitmap) {
+        Bitmap copy = BitmapPool.acquire(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+        Canvas canvas = sScaleCanvases.get();
+        canvas.setBitmap(copy);
+        canvas.drawBitmap(bitmap, 0, 0, sCopyPaint);
+        canvas.setBitmap(null);
+        return copy;
+    }
+    
+    /**
+     * Blur a backdrop captured at a fractional scale to fit a pixel budget
+     * 
+     * The result looks like blur() of the full-size backdrop at the same
+     * radius and downsample factor: the blur extent is scaled along with
+     * the capture. The capture is only downsampled further when the blur
+     * would otherwise need more than MAX_BUDGET_PASSES passes.
+     * 
+     * @param sourceScale Scale the bitmap was captured at (0-1]
+     * @return Blurred bitmap at its downsampled size (never the source bitmap itself)
+     */
+    public static Bitmap blurScaled(
+            @Nullable RenderScript context,
+            @NonNull Bitmap bitmap,
+            float blurRadius,
+            int downsampleFactor,
+            float sourceScale
+    ) {
+        blurRadius = Math.max(1f, Math.min(100f, blurRadius));
+        downsampleFactor = Math.max(1, Math.min(16, downsampleFactor));
+        
+        float extent = blurExtent(blurRadius, downsampleFactor) * sourceScale;
+        int levelDownsample = budgetDownsample(extent);
+        return blurLevel(
+                context,
+                bitmap,
+                Math.max(1, bitmap.getWidth() / levelDownsample),
+                Math.max(1, bitmap.getHeight() / levelDownsample),
+                extent / levelDownsample
+        );
+    }
+    
+    /**
+     * Blur one source at several ascending radii as a chain (blur pyramid)
+     * 
+     * Each level continues from the previous level instead of the source:
+     * it is scaled down from the previous (already blurred, already small)
+     * bitmap and blurred only by the remaining amount, and it drops to a
+     * coarser size rather than adding passes. Blurring 0-100 this way costs
+     * about as much as one blur() at 50. Levels approximate blur() at the
+     * same radius and are kept at their downsampled size.
+     * 
+     * @param blurRadii Ascending blur radii (1-100)
+     * @return One blurred bitmap per radius (never the source bitmap itself)
+     */
+    public static Bitmap[] blurPyramid(
+            @Nullable RenderScript context,
+            @NonNull Bitmap bitmap,
+            @NonNull float[] blurRadii,
+            int downsampleFactor
+    ) {
+        return pyramid(context, bitmap, blurRadii, downsampleFactor, 1f, false);
+    }
+    
+    /**
+     * Blur pyramid of a backdrop captured at a fractional scale (see blurScaled)
+     * 
+     * @param sourceScale Scale the bitmap was captured at (0-1]
+     */
+    public static Bitmap[] blurPyramidScaled(
+            @Nullable RenderScript context,
+            @NonNull Bitmap bitmap,
+            @NonNull float[] blurRadii,
+            int downsampleFactor,
+            float sourceScale
+    ) {
+        return pyramid(context, bitmap, blurRadii, downsampleFactor, sourceScale, true);
+    }
+    
+    private static Bitmap[] pyramid(
+            @Nullable RenderScript context,
+            @NonNull Bitmap bitmap,
+            @NonNull float[] blurRadii,
+            int downsampleFactor,
+            float sourceScale,
+            boolean budgeted
+    ) {
+        downsampleFactor = Math.max(1, Math.min(16, downsampleFactor));
+        
+        Bitmap[] levels = new Bitmap[blurRadii.length];
+        Bitmap current = bitmap;
+        int currentDownsample = 1;
+        float currentExtent = 0f;
+        
+        for (int i = 0; i < blurRadii.length; i++) {
+            float blurRadius = Math.max(1f, Math.min(100f, blurRadii[i]));
+            float extent = blurExtent(blurRadius, downsampleFactor) * sourceScale;
+            float remaining = (float) Math.sqrt(Math.max(0f, extent * extent - currentExtent * currentExtent));
+            
+            int levelDownsample;
+            if (budgeted) {
+                // The capture already fits the budget; only bound the passes
+                levelDownsample = Math.max(currentDownsample, budgetDownsample(remaining));
+            } else {
+                // Never finer than the previous level or than blur() would use; go
+                // up to 2x coarser than blur() when that saves passes
+                int minDownsample = Math.max(currentDownsample, effectiveDownsample(blurRadius, downsampleFactor));
+                levelDownsample = Math.max(minDownsample, Math.min(
+                        2 * effectiveDownsample(blurRadius, downsampleFactor),
+                        (int) Math.ceil(remaining / MAX_BLUR_RADIUS)
+                ));
+            }
+            
+            // Remaining blur in this level's pixels (passes add up like variances)
+            Bitmap level = blurLevel(
+                    context,
+                    current,
+                    Math.max(1, bitmap.getWidth() / levelDownsample),
+                    Math.max(1, bitmap.getHeight() / levelDownsample),
+                    remaining / levelDownsample
+            );
+            
+            levels[i] = level;
+            current = level;
+            currentDownsample = levelDownsample;
+            currentExtent = extent;
+        }
+        return levels;
+    }
+    
+    /**
+     * Scale a bitmap to a size and blur it by a radius in the new size's pixels
+     * 
+     * The bitmap itself is never blurred in place.
+     */
+    private static Bitmap blurLevel(
+            @Nullable RenderScript context,
+            @NonNull Bitmap bitmap,
+            int width,
+            int height,
+            float levelRadius
+    ) {
+        int passes = Math.max(1, (int) Math.ceil(
+                (levelRadius / MAX_BLUR_RADIUS) * (levelRadius / MAX_BLUR_RADIUS) - 0.01f
+        ));
+        float radiusPerPass = Math.max(1f, Math.min(MAX_BLUR_RADIUS, levelRadius / (float) Math.sqrt(passes)));
+        return downsampleAndBlur(context, bitmap, width, height, radiusPerPass, passes);
+    }
+    
+    /**
+     * Smallest downsample that blurs an extent in at most MAX_BUDGET_PASSES passes
+     */
+    private static int budgetDownsample(float extent) {
+        return Math.max(1, (int) Math.ceil(extent / (MAX_BLUR_RADIUS * (float) Math.sqrt(MAX_BUDGET_PASSES))));
+    }
+    
+    /**
+     * Downsample factor blur() uses for a radius
+     * (AGGRESSIVE downsampling for deeper blur: higher blur = smaller bitmap)
+     */
+    static int effectiveDownsample(float blurRadius, int downsampleFactor) {
         int effectiveDownsample = downsampleFactor;
         if (blurRadius > 30) {
             effectiveDownsample = Math.max(effectiveDownsample, 4);
@@ -60,58 +494,65 @@ public class BlurHelper {
         if (blurRadius > 70) {
             effectiveDownsample = Math.max(effectiveDownsample, 8);
         }
-        
-        // Scale down for performance and blur intensity
-        int width = Math.max(1, bitmap.getWidth() / effectiveDownsample);
-        int height = Math.max(1, bitmap.getHeight() / effectiveDownsample);
-        
-        Bitmap inputBitmap = Bitmap.createScaledBitmap(bitmap, width, height, true);
-        Bitmap outputBitmap = inputBitmap;
-        
-        // Calculate number of blur passes - MORE passes for deeper blur
-        // Each pass adds blur, so 4+ passes = very deep blur
-        int passes;
-        float radiusPerPass;
-        
+        return effectiveDownsample;
+    }
+    
+    /**
+     * Number of blur passes - MORE passes for deeper blur
+     * (each pass adds blur, so 4+ passes = very deep blur)
+     */
+    private static int passCount(float blurRadius) {
         if (blurRadius <= 25) {
-            passes = 1;
-            radiusPerPass = blurRadius;
+            return 1;
         } else if (blurRadius <= 50) {
-            passes = 3;
-            radiusPerPass = MAX_BLUR_RADIUS;
+            return 3;
         } else if (blurRadius <= 75) {
-            passes = 5;
-            radiusPerPass = MAX_BLUR_RADIUS;
-        } else {
-            // Ultra deep blur: 6+ passes with max radius
-            passes = 6;
-            radiusPerPass = MAX_BLUR_RADIUS;
+            return 5;
         }
-        
-        // Apply blur in multiple passes for DEEP blur effect
-        for (int i = 0; i < passes; i++) {
-            if (context != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-                try {
-                    outputBitmap = renderScriptBlur(context, outputBitmap, radiusPerPass);
-                } catch (Exception e) {
-                    outputBitmap = stackBlur(outputBitmap, (int) radiusPerPass);
-                }
-            } else {
-                outputBitmap = stackBlur(outputBitmap, (int) radiusPerPass);
+        // Ultra deep blur: 6+ passes with max radius
+        return 6;
+    }
+    
+    private static float passRadius(float blurRadius) {
+        return blurRadius <= 25 ? blurRadius : MAX_BLUR_RADIUS;
+    }
+    
+    /**
+     * Approximate reach of blur() in source pixels
+     */
+    private static float blurExtent(float blurRadius, int downsampleFactor) {
+        return effectiveDownsample(blurRadius, downsampleFactor)
+                * passRadius(blurRadius)
+                * (float) Math.sqrt(passCount(blurRadius));
+    }
+    
+    /**
+     * Blur passes with the best available engine
+     * 
+     * Every engine reads the pixels once and writes them back once, however
+     * many passes it runs (RenderScript through its allocations, the native
+     * kernel on the bitmap itself, Java through a PixelBuffer). Opaque 16-bit bitmaps stay 16-bit (software
+     * engines only).
+     * 
+     * @param inPlace Whether the bitmap may be modified (it is owned by the caller)
+     */
+    private static Bitmap blurPasses(
+            @Nullable RenderScript context,
+            @NonNull Bitmap bitmap,
+            float radius,
+            int passes,
+            boolean inPlace
+    ) {
+        if (bitmap.getConfig() != Bitmap.Config.RGB_565
+                && context != null
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            try {
+                return renderScriptBlur(context, bitmap, radius, passes, inPlace);
+            } catch (Exception e) {
+                return softwareBlur(bitmap, (int) radius, passes, inPlace);
             }
         }
-        
-        // Scale back up - this ALSO adds blur effect due to interpolation
-        if (effectiveDownsample > 1) {
-            outputBitmap = Bitmap.createScaledBitmap(
-                    outputBitmap, 
-                    bitmap.getWidth(), 
-                    bitmap.getHeight(), 
-                    true  // Bilinear filtering adds smoothness
-            );
-        }
-        
-        return outputBitmap;
+        return softwareBlur(bitmap, (int) radius, passes, inPlace);
     }
     
     /**
@@ -120,256 +561,177 @@ public class BlurHelper {
     private static Bitmap renderScriptBlur(
             @NonNull RenderScript rs,
             @NonNull Bitmap bitmap,
-            float radius
+            float radius,
+            int passes,
+            boolean inPlace
     ) {
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1) {
             return bitmap;
         }
         
-        Bitmap output = Bitmap.createBitmap(
-                bitmap.getWidth(), 
-                bitmap.getHeight(), 
-                Bitmap.Config.ARGB_8888
-        );
-        
-        Allocation input = Allocation.createFromBitmap(rs, bitmap);
-        Allocation outputAlloc = Allocation.createFromBitmap(rs, output);
-        
-        ScriptIntrinsicBlur script = ScriptIntrinsicBlur.create(rs, Element.U8_4(rs));
-        script.setRadius(radius);
-        script.setInput(input);
-        script.forEach(outputAlloc);
-        
-        outputAlloc.copyTo(output);
+        return renderScriptPasses(rs, bitmap, radius, passes, inPlace);
+    }
+    
+    /**
+     * Upload once, ping-pong the passes between two allocations, read back once
+     */
+    private static Bitmap renderScriptPasses(
+            @NonNull RenderScript rs,
+            @NonNull Bitmap bitmap,
+            float radius,
+            int passes,
+            boolean inPlace
+    ) {
+        Bitmap output = inPlace && bitmap.isMutable() && bitmap.getConfig() == Bitmap.Config.ARGB_8888
+                ? bitmap
+                : BitmapPool.acquire(bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888);
         
-        input.destroy();
-        outputAlloc.destroy();
-        script.destroy();
+        synchronized (sBlurLock) {
+            prepareRenderScript(rs, bitmap.getWidth(), bitmap.getHeight());
+            Allocation source = sBlurInput;
+            Allocation target = sBlurOutput;
+            source.copyFrom(bitmap);
+            
+            sBlurScript.setRadius(radius);
+            for (int i = 0; i < passes; i++) {
+                sBlurScript.setInput(source);
+                NimGlassTrace.begin("NimGlass:renderScriptPass", bitmap.getWidth(), bitmap.getHeight());
+                try {
+                    sBlurScript.forEach(target);
+                } finally {
+                    NimGlassTrace.end();
+                }
+                Allocation swap = source;
+                source = target;
+                target = swap;
+            }
+            
+            source.copyTo(output);
+        }
         
         return output;
     }
     
+    /**
+     * Create the blur intrinsic once and the allocations whenever the size changes
+     * (called with sBlurLock held)
+     */
+    private static void prepareRenderScript(@NonNull RenderScript rs, int width, int height) {
+        if (sBlurScript == null) {
+            sBlurScript = ScriptIntrinsicBlur.create(rs, Element.U8_4(rs));
+        }
+        if (sBlurInput != null
+                && sBlurInput.getType().getX() == width
+                && sBlurInput.getType().getY() == height) {
+            return;
+        }
+        if (sBlurInput != null) {
+            sBlurInput.destroy();
+            sBlurOutput.destroy();
+        }
+        Type type = new Type.Builder(rs, Element.U8_4(rs))
+                .setX(width)
+                .setY(height)
+                .create();
+        sBlurInput = Allocation.createTyped(rs, type);
+        sBlurOutput = Allocation.createTyped(rs, type);
+    }
+    
+    /**
+     * Blur without RenderScript: native SIMD kernel if loaded, else Java stack blur
+     * 
+     * Both run every pass in place: the native kernel directly on the
+     * bitmap's pixels, the Java kernel on this thread's PixelBuffer.
+     * 
+     * @param inPlace Whether the bitmap may be modified (it is owned by the caller)
+     */
+    private static Bitmap softwareBlur(@NonNull Bitmap bitmap, int radius, int passes, boolean inPlace) {
+        if (radius < 1) {
+            return inPlace ? bitmap : bitmap.copy(bitmap.getConfig(), true);
+        }
+        if (NativeBlur.isAvailable() && NativeBlur.supports(bitmap.getConfig())) {
+            Bitmap target = inPlace && bitmap.isMutable()
+                    ? bitmap
+                    : pooledCopy(bitmap);
+            boolean blurred = true;
+            for (int i = 0; i < passes && blurred; i++) {
+                NimGlassTrace.begin("NimGlass:nativePass", target.getWidth(), target.getHeight());
+                blurred = NativeBlur.blur(target, radius);
+                NimGlassTrace.end();
+            }
+            if (blurred) {
+                return target;
+            }
+            if (target != bitmap) {
+                BitmapPool.release(target);
+            }
+        }
+        return stackBlur(bitmap, radius, passes, inPlace);
+    }
+    
+    /**
+     * Engine used for the next blur of a bitmap with the given config
+     * (a RenderScript failure still falls back to the software engines)
+     */
+    @NonNull
+    public static Engine getEngine(@Nullable RenderScript context, @NonNull Bitmap.Config config) {
+        if (config == Bitmap.Config.RGB_565) {
+            return NativeBlur.isAvailable() ? Engine.NATIVE : Engine.JAVA;
+        }
+        if (context != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return Engine.RENDERSCRIPT;
+        }
+        return NativeBlur.isAvailable() ? Engine.NATIVE : Engine.JAVA;
+    }
+    
     /**
      * Stack blur algorithm - pure Java fallback
-     * Based on Mario Klingemann's stack blur algorithm
+     * Based on Mario Klingemann's stack blur algorithm (see PixelBuffer)
+     * 
+     * RGB_565 bitmaps stay RGB_565 and skip the alpha channel arithmetic.
      */
     public static Bitmap stackBlur(Bitmap bitmap, int radius) {
         if (radius < 1) return bitmap;
+        return stackBlur(bitmap, radius, 1, false);
+    }
+    
+    private static Bitmap stackBlur(Bitmap bitmap, int radius, int passes, boolean inPlace) {
+        return stackBlur(bitmap, bitmap.getWidth(), bitmap.getHeight(), radius, passes, inPlace);
+    }
+    
+    /**
+     * Stack blur passes with a single pixel read and write, downsampling in
+     * the buffer first if the size is smaller than the bitmap's
+     * 
+     * @param inPlace Whether the bitmap may be modified (it is owned by the caller)
+     */
+    private static Bitmap stackBlur(Bitmap bitmap, int width, int height, int radius, int passes, boolean inPlace) {
+        Bitmap.Config config = bitmap.getConfig() == Bitmap.Config.RGB_565
+                ? Bitmap.Config.RGB_565
+                : Bitmap.Config.ARGB_8888;
+        Bitmap source = bitmap.getConfig() == config ? bitmap : bitmap.copy(config, false);
+        boolean scaled = width != bitmap.getWidth() || height != bitmap.getHeight();
+        Bitmap result = inPlace && !scaled && source == bitmap && bitmap.isMutable()
+                ? bitmap
+                : BitmapPool.acquire(width, height, config);
         
-        Bitmap result = bitmap.copy(Bitmap.Config.ARGB_8888, true);
-        int w = result.getWidth();
-        int h = result.getHeight();
-        
-        int[] pixels = new int[w * h];
-        result.getPixels(pixels, 0, w, 0, 0, w, h);
-        
-        int wm = w - 1;
-        int hm = h - 1;
-        int wh = w * h;
-        int div = radius + radius + 1;
-        
-        int[] r = new int[wh];
-        int[] g = new int[wh];
-        int[] b = new int[wh];
-        int[] a = new int[wh];
-        int rsum, gsum, bsum, asum, x, y, i, p, yp, yi, yw;
-        int[] vmin = new int[Math.max(w, h)];
-        
-        int divsum = (div + 1) >> 1;
-        divsum *= divsum;
-        int[] dv = new int[256 * divsum];
-        for (i = 0; i < 256 * divsum; i++) {
-            dv[i] = (i / divsum);
+        PixelBuffer pixels = sPixelBuffers.get();
+        pixels.read(source);
+        if (scaled) {
+            NimGlassTrace.begin("NimGlass:downsample", width, height);
+            pixels.downsample(width, height);
+            NimGlassTrace.end();
         }
-        
-        yw = yi = 0;
-        
-        int[][] stack = new int[div][4];
-        int stackpointer;
-        int stackstart;
-        int[] sir;
-        int rbs;
-        int r1 = radius + 1;
-        int routsum, goutsum, boutsum, aoutsum;
-        int rinsum, ginsum, binsum, ainsum;
-        
-        for (y = 0; y < h; y++) {
-            rinsum = ginsum = binsum = ainsum = routsum = goutsum = boutsum = aoutsum = rsum = gsum = bsum = asum = 0;
-            for (i = -radius; i <= radius; i++) {
-                p = pixels[yi + Math.min(wm, Math.max(i, 0))];
-                sir = stack[i + radius];
-                sir[0] = (p & 0x00ff0000) >> 16;
-                sir[1] = (p & 0x0000ff00) >> 8;
-                sir[2] = (p & 0x000000ff);
-                sir[3] = (p & 0xff000000) >>> 24;
-                rbs = r1 - Math.abs(i);
-                rsum += sir[0] * rbs;
-                gsum += sir[1] * rbs;
-                bsum += sir[2] * rbs;
-                asum += sir[3] * rbs;
-                if (i > 0) {
-                    rinsum += sir[0];
-                    ginsum += sir[1];
-                    binsum += sir[2];
-                    ainsum += sir[3];
-                } else {
-                    routsum += sir[0];
-                    goutsum += sir[1];
-                    boutsum += sir[2];
-                    aoutsum += sir[3];
-                }
-            }
-            stackpointer = radius;
-            
-            for (x = 0; x < w; x++) {
-                r[yi] = dv[rsum];
-                g[yi] = dv[gsum];
-                b[yi] = dv[bsum];
-                a[yi] = dv[asum];
-                
-                rsum -= routsum;
-                gsum -= goutsum;
-                bsum -= boutsum;
-                asum -= aoutsum;
-                
-                stackstart = stackpointer - radius + div;
-                sir = stack[stackstart % div];
-                
-                routsum -= sir[0];
-                goutsum -= sir[1];
-                boutsum -= sir[2];
-                aoutsum -= sir[3];
-                
-                if (y == 0) {
-                    vmin[x] = Math.min(x + radius + 1, wm);
-                }
-                p = pixels[yw + vmin[x]];
-                
-                sir[0] = (p & 0x00ff0000) >> 16;
-                sir[1] = (p & 0x0000ff00) >> 8;
-                sir[2] = (p & 0x000000ff);
-                sir[3] = (p & 0xff000000) >>> 24;
-                
-                rinsum += sir[0];
-                ginsum += sir[1];
-                binsum += sir[2];
-                ainsum += sir[3];
-                
-                rsum += rinsum;
-                gsum += ginsum;
-                bsum += binsum;
-                asum += ainsum;
-                
-                stackpointer = (stackpointer + 1) % div;
-                sir = stack[(stackpointer) % div];
-                
-                routsum += sir[0];
-                goutsum += sir[1];
-                boutsum += sir[2];
-                aoutsum += sir[3];
-                
-                rinsum -= sir[0];
-                ginsum -= sir[1];
-                binsum -= sir[2];
-                ainsum -= sir[3];
-                
-                yi++;
-            }
-            yw += w;
+        for (int i = 0; i < passes; i++) {
+            NimGlassTrace.begin("NimGlass:javaPass", width, height);
+            pixels.stackBlur(radius);
+            NimGlassTrace.end();
         }
+        pixels.write(result);
         
-        for (x = 0; x < w; x++) {
-            rinsum = ginsum = binsum = ainsum = routsum = goutsum = boutsum = aoutsum = rsum = gsum = bsum = asum = 0;
-            yp = -radius * w;
-            for (i = -radius; i <= radius; i++) {
-                yi = Math.max(0, yp) + x;
-                
-                sir = stack[i + radius];
-                
-                sir[0] = r[yi];
-                sir[1] = g[yi];
-                sir[2] = b[yi];
-                sir[3] = a[yi];
-                
-                rbs = r1 - Math.abs(i);
-                
-                rsum += r[yi] * rbs;
-                gsum += g[yi] * rbs;
-                bsum += b[yi] * rbs;
-                asum += a[yi] * rbs;
-                
-                if (i > 0) {
-                    rinsum += sir[0];
-                    ginsum += sir[1];
-                    binsum += sir[2];
-                    ainsum += sir[3];
-                } else {
-                    routsum += sir[0];
-                    goutsum += sir[1];
-                    boutsum += sir[2];
-                    aoutsum += sir[3];
-                }
-                
-                if (i < hm) {
-                    yp += w;
-                }
-            }
-            yi = x;
-            stackpointer = radius;
-            for (y = 0; y < h; y++) {
-                pixels[yi] = (dv[asum] << 24) | (dv[rsum] << 16) | (dv[gsum] << 8) | dv[bsum];
-                
-                rsum -= routsum;
-                gsum -= goutsum;
-                bsum -= boutsum;
-                asum -= aoutsum;
-                
-                stackstart = stackpointer - radius + div;
-                sir = stack[stackstart % div];
-                
-                routsum -= sir[0];
-                goutsum -= sir[1];
-                boutsum -= sir[2];
-                aoutsum -= sir[3];
-                
-                if (x == 0) {
-                    vmin[y] = Math.min(y + r1, hm) * w;
-                }
-                p = x + vmin[y];
-                
-                sir[0] = r[p];
-                sir[1] = g[p];
-                sir[2] = b[p];
-                sir[3] = a[p];
-                
-                rinsum += sir[0];
-                ginsum += sir[1];
-                binsum += sir[2];
-                ainsum += sir[3];
-                
-                rsum += rinsum;
-                gsum += ginsum;
-                bsum += binsum;
-                asum += ainsum;
-                
-                stackpointer = (stackpointer + 1) % div;
-                sir = stack[stackpointer];
-                
-                routsum += sir[0];
-                goutsum += sir[1];
-                boutsum += sir[2];
-                aoutsum += sir[3];
-                
-                rinsum -= sir[0];
-                ginsum -= sir[1];
-                binsum -= sir[2];
-                ainsum -= sir[3];
-                
-                yi += w;
-            }
+        if (source != bitmap) {
+            source.recycle();
         }
-        
-        result.setPixels(pixels, 0, w, 0, 0, w, h);
         return result;
     }
     
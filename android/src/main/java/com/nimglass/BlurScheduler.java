@@ -0,0 +1,170 @@
+package com.nimglass;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * BlurScheduler - Process-wide frame budget for glass view blur work
+ * 
+ * Glass views submit their dirty work here instead of blurring in their own
+ * pre-draw listener. Once per frame the scheduler runs pending views in
+ * priority order until the frame budget is spent, and defers the rest to
+ * the following frames. Priority is visible area times frames waited, so a
+ * large view goes first but a small one left waiting catches up; a view
+ * that just ran starts over, even if it asks again right away (e.g. every
+ * frame of a scroll). A view that has waited MAX_WAIT_FRAMES goes ahead of
+ * all others, so no view is starved however small it is. At least one view
+ * runs per frame, so every view makes progress.
+ * 
+ * Main thread only.
+ */
+final class BlurScheduler implements Choreographer.FrameCallback {
+    
+    // Blur time per frame, leaving the rest of a 16 ms frame for the app
+    private static final long FRAME_BUDGET_NANOS = 6000000L;
+    
+    // Frames a pending view waits at most before it goes ahead of larger ones
+    static final int MAX_WAIT_FRAMES = 4;
+    
+    private static BlurScheduler sInstance;
+    
+    // One entry per requesting view, kept until cancel
+    private final ArrayList<Entry> mEntries = new ArrayList<>();
+    private final ArrayList<Entry> mQueue = new ArrayList<>();
+    private long mFrame = 0;
+    private boolean mFrameScheduled = false;
+    
+    private static final class Entry {
+        final NimGlassBlurView view;
+        long visibleArea;
+        // Frame the current request was made in (valid while pending)
+        long requestFrame;
+        boolean pending;
+        
+        Entry(NimGlassBlurView view) {
+            this.view = view;
+        }
+    }
+    
+    private final Comparator<Entry> mByPriority = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            long waitedA = mFrame - a.requestFrame;
+            long waitedB = mFrame - b.requestFrame;
+            boolean starvedA = waitedA >= MAX_WAIT_FRAMES;
+            boolean starvedB = waitedB >= MAX_WAIT_FRAMES;
+            if (starvedA != starvedB) {
+                return starvedA ? -1 : 1;
+            }
+            if (starvedA) {
+                // Longest wait first
+                return Long.compare(waitedB, waitedA);
+            }
+            // Views with no visible area yet still gain priority as they wait
+            return Long.compare(
+                    Math.max(b.visibleArea, 1) * waitedB,
+                    Math.max(a.visibleArea, 1) * waitedA
+            );
+        }
+    };
+    
+    private BlurScheduler() {
+    }
+    
+    @NonNull
+    static BlurScheduler getInstance() {
+        if (sInstance == null) {
+            sInstance = new BlurScheduler();
+        }
+        return sInstance;
+    }
+    
+    /**
+     * Queue blur work for a view (no-op if already queued)
+     * 
+     * @param visibleArea On-screen area of the view in pixels
+     */
+    void request(@NonNull NimGlassBlurView view, long visibleArea) {
+        Entry entry = find(view);
+        if (entry == null) {
+            entry = new Entry(view);
+            mEntries.add(entry);
+        }
+        entry.visibleArea = visibleArea;
+        if (!entry.pending) {
+            entry.requestFrame = mFrame;
+            entry.pending = true;
+        }
+        scheduleFrame();
+    }
+    
+    /**
+     * Drop queued work for a view (e.g. when detached)
+     */
+    void cancel(@NonNull NimGlassBlurView view) {
+        Entry entry = find(view);
+        if (entry != null) {
+            mEntries.remove(entry);
+        }
+    }
+    
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        mFrame++;
+        
+        mQueue.clear();
+        for (int i = 0; i < mEntries.size(); i++) {
+            Entry entry = mEntries.get(i);
+            if (entry.pending) {
+                mQueue.add(entry);
+            }
+        }
+        if (mQueue.isEmpty()) {
+            return;
+        }
+        
+        Collections.sort(mQueue, mByPriority);
+        
+        long start = System.nanoTime();
+        int ran = 0;
+        while (ran < mQueue.size()) {
+            if (ran > 0 && System.nanoTime() - start >= FRAME_BUDGET_NANOS) {
+                break;
+            }
+            Entry entry = mQueue.get(ran);
+            entry.pending = false;
+            entry.view.runScheduledBlur();
+            ran++;
+        }
+        
+        // The rest keep their request frame and gain priority next frame
+        boolean waiting = ran < mQueue.size();
+        mQueue.clear();
+        if (waiting) {
+            scheduleFrame();
+        }
+    }
+    
+    private Entry find(NimGlassBlurView view) {
+        for (int i = 0; i < mEntries.size(); i++) {
+            Entry entry = mEntries.get(i);
+            if (entry.view == view) {
+                return entry;
+            }
+        }
+        return null;
+    }
+    
+    private void scheduleFrame() {
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.nimglass;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+/**
+ * NativeBlur - SIMD stack blur from the bundled native library
+ * 
+ * Blurs ARGB_8888 and RGB_565 bitmaps in place on their locked pixels
+ * (NEON on ARM, SSE4.1 on x86_64). Used by BlurHelper when RenderScript
+ * is unavailable, and for low-precision (RGB_565) backdrops.
+ */
+final class NativeBlur {
+    
+    private static final String TAG = "NimGlass";
+    
+    private static final boolean sAvailable;
+    
+    static {
+        boolean loaded;
+        try {
+            System.loadLibrary("nimglass");
+            loaded = true;
+        } catch (UnsatisfiedLinkError e) {
+            Log.w(TAG, "Native blur library unavailable, using Java stack blur", e);
+            loaded = false;
+        }
+        sAvailable = loaded;
+    }
+    
+    private NativeBlur() {
+    }
+    
+    /**
+     * Whether the native library was loaded
+     */
+    static boolean isAvailable() {
+        return sAvailable;
+    }
+    
+    /**
+     * Blur a mutable ARGB_8888 or RGB_565 bitmap in place
+     * 
+     * @return false if the bitmap could not be blurred (wrong config, lock failure)
+     */
+    static boolean blur(@NonNull Bitmap bitmap, int radius) {
+        if (!sAvailable || !bitmap.isMutable() || !supports(bitmap.getConfig())) {
+            return false;
+        }
+        return nativeStackBlur(bitmap, radius);
+    }
+    
+    /**
+     * Whether the native kernel can blur bitmaps of this config
+     */
+    static boolean supports(Bitmap.Config config) {
+        return config == Bitmap.Config.ARGB_8888 || config == Bitmap.Config.RGB_565;
+    }
+    
+    private static native boolean nativeStackBlur(Bitmap bitmap, int radius);
+}
@@ -1,13 +1,17 @@
 package com.nimglass;
 
+import android.app.Activity;
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.ComposeShader;
 import android.graphics.LinearGradient;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.RenderEffect;
 import android.graphics.Shader;
@@ -16,14 +20,21 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.renderscript.RenderScript;
+import android.util.TypedValue;
 import android.view.View;
-import android.view.ViewGroup;
+import android.view.ViewParent;
 import android.view.ViewTreeObserver;
 import android.widget.FrameLayout;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.RequiresApi;
 
+import com.facebook.react.bridge.LifecycleEventListener;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.common.LifecycleState;
+
+import java.util.Locale;
+
 /**
  * NimGlassBlurView - Native Android glass/blur effect view
  * 
@@ -32,14 +43,58 @@ import androidx.annotation.RequiresApi;
  * 2. Applying Gaussian blur to the captured content
  * 3. Displaying blurred content with tint overlay
  * 4. Supporting inset shadows for depth
+ * 
+ * With progressiveEndRadius set, the blur radius changes linearly from
+ * blurRadius at the start edge to progressiveEndRadius at the end edge:
+ * one capture is blurred into a pyramid of levels, and each band between
+ * two levels cross-fades them with a gradient mask.
+ * 
+ * Only what is drawn behind the view is captured (see BackdropCapture).
+ * On API 26+ that includes SurfaceView and TextureView content (maps,
+ * video, camera previews). The view refreshes when a TextureView behind it
+ * latches a new frame; SurfaceViews give no such signal, so behind them it
+ * refreshes about ten times a second.
+ * 
+ * Capture and blur work is suspended while the view is off-screen,
+ * effectively transparent, covered by a focused window (Dialog, Modal)
+ * or while the React host is paused.
  */
-public class NimGlassBlurView extends FrameLayout {
+public class NimGlassBlurView extends FrameLayout implements LifecycleEventListener {
+    
+    // Views with a combined alpha at or below this are treated as invisible
+    private static final float MIN_VISIBLE_ALPHA = 0.01f;
+    
+    // Blur radii cached from one backdrop while blurRadius animates (radii below
+    // the lowest level show it; cross-fading with the sharp backdrop would ghost)
+    private static final float[] BLUR_LEVELS = {2f, 5f, 10f, 25f, 50f, 75f, 100f};
+    
+    // Delay after the last blurRadius change before an exact re-blur
+    private static final long BLUR_TRANSITION_SETTLE_MS = 150;
+    
+    // Refresh interval behind SurfaceViews, which give no signal when their content changes
+    private static final long SURFACE_REFRESH_MS = 100;
+    
+    // Time a window keeps its blur running after losing focus, so brief focus
+    // changes (transitions, menus opening and closing) do not pause it
+    private static final long WINDOW_FOCUS_GRACE_MS = 300;
+    
+    // Progressive blur directions (radius goes from blurRadius to progressiveEndRadius)
+    private static final int DIRECTION_TO_BOTTOM = 0;
+    private static final int DIRECTION_TO_TOP = 1;
+    private static final int DIRECTION_TO_RIGHT = 2;
+    private static final int DIRECTION_TO_LEFT = 3;
     
     // Blur settings
     private float mBlurRadius = 25f;
     private int mDownsampleFactor = 4;
+    private int mMaxBlurPixels = 0;
     private int mTintColor = Color.argb(50, 255, 255, 255);
     private float mTintOpacity = 0.15f;
+    private boolean mOpaqueBackdrop = false;
+    
+    // Progressive blur settings (end radius < 0 = uniform blur)
+    private float mProgressiveEndRadius = -1f;
+    private int mProgressiveDirection = DIRECTION_TO_BOTTOM;
     
     // Inset shadow settings
     private boolean mShowInsetShadow = false;
@@ -56,13 +111,101 @@ public class NimGlassBlurView extends FrameLayout {
     private Paint mBitmapPaint;
     private Paint mBorderPaint;
     private Paint mInsetShadowPaint;
+    private Paint mLevelPaint;
+    private Paint mFallbackPaint;
     private Bitmap mBlurredBitmap;
+    
+    // Per-frame objects, kept so drawing does not allocate
+    private final RectF mDrawRect = new RectF();
+    private Shader mTopShadowShader;
+    private Shader mLeftShadowShader;
+    
+    // Blur transition: last captured backdrop and its lazily blurred levels
+    // (kept only while a transition or a progressive blur re-blurs it)
+    private Bitmap mBackdropBitmap;
+    // Scale the backdrop was captured at under maxBlurPixels (0 = full size, no budget)
+    private float mBackdropScale = 0f;
+    private final Bitmap[] mBlurLevels = new Bitmap[BLUR_LEVELS.length];
+    private boolean mInBlurTransition = false;
+    private boolean mBlurTransitionSettled = false;
+    private final Runnable mSettleBlurTransition = new Runnable() {
+        @Override
+        public void run() {
+            // Exact re-blur is queued with the scheduler via the next pre-draw
+            mBlurTransitionSettled = true;
+            invalidate();
+        }
+    };
+    
+    // Progressive blur: gradient-masked shader per upper level of each band
+    private Paint mProgressivePaint;
+    private Shader[] mProgressiveShaders;
+    
+    // Backdrop capture; captures with SurfaceView copies complete asynchronously
+    private final BackdropCapture mBackdropCapture = new BackdropCapture();
+    private Bitmap mCapturedBackdrop;
+    private long mCaptureStartNanos = 0;
+    private float mCaptureScale = 0f;
+    private final BackdropCapture.Callback mBackdropCaptured = new BackdropCapture.Callback() {
+        @Override
+        public void onBackdropCaptured(@NonNull Bitmap capture) {
+            // Blurred within the frame budget by the next scheduled run
+            BitmapPool.release(mCapturedBackdrop);
+            mCapturedBackdrop = capture;
+            invalidate();
+        }
+        
+        @Override
+        public void onSurfacesChanged() {
+            mNeedsRedraw = true;
+            invalidate();
+        }
+    };
+    // Checks TextureViews for new frames on the frame after a traversal,
+    // once they have latched what caused it
+    private boolean mTextureCheckPosted = false;
+    private final Runnable mCheckTextures = new Runnable() {
+        @Override
+        public void run() {
+            mTextureCheckPosted = false;
+            if (isBlurVisible()) {
+                mBackdropCapture.refreshTextures();
+            }
+        }
+    };
+    private final Runnable mRefreshSurfaces = new Runnable() {
+        @Override
+        public void run() {
+            refresh();
+        }
+    };
+    private final Runnable mCoverWindow = new Runnable() {
+        @Override
+        public void run() {
+            mWindowCovered = !hasWindowFocus() && !isInMultiWindowMode();
+        }
+    };
+    
     private RenderScript mRenderScript;
     private boolean mIsRendering = false;
     private Handler mHandler;
     
+    // Debug overlay: last pipeline timings, drawn on top of the view
+    private boolean mDebugOverlay = false;
+    private Paint mDebugTextPaint;
+    private Paint mDebugBackgroundPaint;
+    private long mLastCaptureNanos = 0;
+    private long mLastBlurNanos = 0;
+    private long mLastDrawNanos = 0;
+    private BlurHelper.Engine mLastEngine = null;
+    
     // State
     private boolean mNeedsRedraw = true;
+    private boolean mHostPaused = false;
+    // Another window (Dialog, Modal) has held focus over this one past the grace period
+    private boolean mWindowCovered = false;
+    private final Rect mVisibleRect = new Rect();
+    private final RectF mBoundsInParent = new RectF();
     
     public NimGlassBlurView(@NonNull Context context) {
         super(context);
@@ -73,14 +216,8 @@ public class NimGlassBlurView extends FrameLayout {
         setWillNotDraw(false);
         mHandler = new Handler(Looper.getMainLooper());
         
-        // Initialize RenderScript
-        try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-                mRenderScript = RenderScript.create(getContext());
-            }
-        } catch (Exception e) {
-            mRenderScript = null;
-        }
+        // Shared RenderScript context (already created if NimGlass was prewarmed)
+        mRenderScript = BlurHelper.getRenderScript(getContext());
         
         // Tint overlay paint
         mTintPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
@@ -92,6 +229,16 @@ public class NimGlassBlurView extends FrameLayout {
         mBitmapPaint.setFilterBitmap(true);
         mBitmapPaint.setDither(true);
         
+        // Paint for cross-fading the upper blur level during transitions
+        mLevelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mLevelPaint.setFilterBitmap(true);
+        mLevelPaint.setDither(true);
+        
+        // Paint for the gradient-masked levels of a progressive blur
+        mProgressivePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mProgressivePaint.setFilterBitmap(true);
+        mProgressivePaint.setDither(true);
+        
         // Border paint for glass edge highlight
         mBorderPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mBorderPaint.setStyle(Paint.Style.STROKE);
@@ -102,12 +249,26 @@ public class NimGlassBlurView extends FrameLayout {
         mInsetShadowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mInsetShadowPaint.setStyle(Paint.Style.FILL);
         
+        // Fallback paint while no blur is available yet
+        mFallbackPaint = new Paint();
+        mFallbackPaint.setColor(Color.argb(180, 255, 255, 255));
+        
         // Listen for layout changes to update blur
         getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
             @Override
             public boolean onPreDraw() {
-                if (mNeedsRedraw && getWidth() > 0 && getHeight() > 0) {
-                    updateBlurredBackground();
+                // Keep mNeedsRedraw set while hidden so the view refreshes once when shown.
+                // The work itself runs in BlurScheduler within the shared frame budget.
+                if ((mNeedsRedraw || mCapturedBackdrop != null || mBlurTransitionSettled || needsBlurLevels())
+                        && isBlurVisible()) {
+                    BlurScheduler.getInstance().request(
+                            NimGlassBlurView.this,
+                            (long) mVisibleRect.width() * mVisibleRect.height()
+                    );
+                }
+                if (mBackdropCapture.hasTextureViews() && !mTextureCheckPosted) {
+                    mTextureCheckPosted = true;
+                    postOnAnimation(mCheckTextures);
                 }
                 return true;
             }
@@ -126,8 +287,30 @@ public class NimGlassBlurView extends FrameLayout {
      * Set blur radius (1-100)
      */
     public void setBlurRadius(float radius) {
-        mBlurRadius = Math.max(1f, Math.min(100f, radius));
-        mNeedsRedraw = true;
+        float blurRadius = Math.max(1f, Math.min(100f, radius));
+        if (blurRadius == mBlurRadius) {
+            return;
+        }
+        boolean wasProgressive = isProgressive();
+        mBlurRadius = blurRadius;
+        
+        if (isProgressive()) {
+            // Bands move; missing levels are blurred from the cached backdrop
+            mProgressiveShaders = null;
+        } else if (wasProgressive) {
+            mNeedsRedraw = true;
+        } else {
+            // Radius is (possibly) animating: cross-fade cached levels of one
+            // backdrop instead of re-capturing every frame (the first change
+            // captures it when none is kept)
+            mInBlurTransition = true;
+            mBlurTransitionSettled = false;
+            mHandler.removeCallbacks(mSettleBlurTransition);
+            mHandler.postDelayed(mSettleBlurTransition, BLUR_TRANSITION_SETTLE_MS);
+            if (mBackdropBitmap == null || mBackdropBitmap.isRecycled()) {
+                mNeedsRedraw = true;
+            }
+        }
         invalidate();
     }
     
@@ -140,6 +323,97 @@ public class NimGlassBlurView extends FrameLayout {
         invalidate();
     }
     
+    /**
+     * Cap the captured backdrop at this many pixels (0 = no cap)
+     * 
+     * The capture is scaled by a fractional factor so it fits the budget,
+     * wherever the view is and whatever the screen density; small views
+     * are captured at full size. downsampleFactor still sets how strong
+     * the blur looks, not the resolution it is computed at.
+     */
+    public void setMaxBlurPixels(int pixels) {
+        pixels = Math.max(0, pixels);
+        if (mMaxBlurPixels == pixels) {
+            return;
+        }
+        mMaxBlurPixels = pixels;
+        mNeedsRedraw = true;
+        invalidate();
+    }
+    
+    /**
+     * Declare the backdrop fully opaque: capture and blur in RGB_565
+     * (half the memory and bandwidth, no alpha arithmetic) when a software
+     * engine blurs; RenderScript stays on ARGB_8888, which it blurs faster
+     */
+    public void setOpaqueBackdrop(boolean opaque) {
+        if (mOpaqueBackdrop == opaque) {
+            return;
+        }
+        mOpaqueBackdrop = opaque;
+        mNeedsRedraw = true;
+        invalidate();
+    }
+    
+    /**
+     * Set the radius at the end edge of a progressive blur (0-100, < 0 = uniform blur)
+     */
+    public void setProgressiveEndRadius(float radius) {
+        float endRadius = radius < 0 ? -1f : Math.min(100f, radius);
+        if (endRadius == mProgressiveEndRadius) {
+            return;
+        }
+        boolean wasProgressive = isProgressive();
+        mProgressiveEndRadius = endRadius;
+        mProgressiveShaders = null;
+        if (wasProgressive != isProgressive()) {
+            mNeedsRedraw = true;
+        }
+        invalidate();
+    }
+    
+    /**
+     * Set the progressive blur direction: toBottom, toTop, toRight or toLeft
+     * (blurRadius applies at the start edge)
+     */
+    public void setProgressiveDirection(String direction) {
+        if ("toTop".equals(direction)) {
+            mProgressiveDirection = DIRECTION_TO_TOP;
+        } else if ("toRight".equals(direction)) {
+            mProgressiveDirection = DIRECTION_TO_RIGHT;
+        } else if ("toLeft".equals(direction)) {
+            mProgressiveDirection = DIRECTION_TO_LEFT;
+        } else {
+            mProgressiveDirection = DIRECTION_TO_BOTTOM;
+        }
+        mProgressiveShaders = null;
+        invalidate();
+    }
+    
+    /**
+     * Whether the blur radius varies along a gradient
+     */
+    private boolean isProgressive() {
+        return mProgressiveEndRadius >= 0 && mProgressiveEndRadius != mBlurRadius;
+    }
+    
+    /**
+     * Draw last capture/blur/draw times and the blur engine on top of the view
+     */
+    public void setDebugOverlay(boolean enabled) {
+        mDebugOverlay = enabled;
+        if (enabled && mDebugTextPaint == null) {
+            mDebugTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mDebugTextPaint.setColor(Color.WHITE);
+            mDebugTextPaint.setTextSize(TypedValue.applyDimension(
+                    TypedValue.COMPLEX_UNIT_SP, 10, getResources().getDisplayMetrics()
+            ));
+            mDebugBackgroundPaint = new Paint();
+            mDebugBackgroundPaint.setColor(Color.argb(160, 0, 0, 0));
+        }
+        invalidate();
+    }
+    
     /**
      * Set tint color overlay
      */
@@ -191,6 +465,8 @@ public class NimGlassBlurView extends FrameLayout {
      */
     public void setInsetShadowColor(int color) {
         mInsetShadowColor = color;
+        mTopShadowShader = null;
+        mLeftShadowShader = null;
         invalidate();
     }
     
@@ -199,9 +475,56 @@ public class NimGlassBlurView extends FrameLayout {
      */
     public void setInsetShadowBlur(float blur) {
         mInsetShadowBlur = Math.max(0f, blur);
+        mTopShadowShader = null;
+        mLeftShadowShader = null;
         invalidate();
     }
     
+    /**
+     * Whether any blurred pixels of this view can currently reach the screen
+     */
+    private boolean isBlurVisible() {
+        if (mHostPaused || mWindowCovered || getWindowVisibility() != View.VISIBLE || !isShown()) {
+            return false;
+        }
+        
+        if (!getGlobalVisibleRect(mVisibleRect) || mVisibleRect.isEmpty()) {
+            return false;
+        }
+        
+        // Combined alpha of this view and its ancestors
+        float alpha = getAlpha();
+        ViewParent parent = getParent();
+        while (alpha > MIN_VISIBLE_ALPHA && parent instanceof View) {
+            alpha *= ((View) parent).getAlpha();
+            parent = parent.getParent();
+        }
+        return alpha > MIN_VISIBLE_ALPHA;
+    }
+    
+    /**
+     * Run the queued blur work (called by BlurScheduler)
+     */
+    void runScheduledBlur() {
+        if (getWidth() <= 0 || getHeight() <= 0 || !isBlurVisible()) {
+            // Stays dirty; the next pre-draw re-submits it once visible
+            return;
+        }
+        if (mCapturedBackdrop != null) {
+            Bitmap capture = mCapturedBackdrop;
+            mCapturedBackdrop = null;
+            blurBackdrop(capture, mCaptureStartNanos, mCaptureScale);
+            invalidate();
+        } else if (mNeedsRedraw) {
+            updateBlurredBackground();
+        } else if (mBlurTransitionSettled) {
+            settleBlurTransition();
+        } else if (needsBlurLevels()) {
+            prepareBlurLevels();
+            invalidate();
+        }
+    }
+    
     /**
      * Update the blurred background bitmap
      */
@@ -209,6 +532,10 @@ public class NimGlassBlurView extends FrameLayout {
         if (mIsRendering || getWidth() <= 0 || getHeight() <= 0) {
             return;
         }
+        if (mBackdropCapture.isPending()) {
+            // Stays dirty until the previous capture's surface copies arrive
+            return;
+        }
         
         mIsRendering = true;
         mNeedsRedraw = false;
@@ -220,48 +547,47 @@ public class NimGlassBlurView extends FrameLayout {
             return;
         }
         
+        NimGlassTrace.begin("NimGlass:update", getId(), getWidth(), getHeight());
         try {
-            // Capture parent's drawing (excluding this view)
-            setVisibility(View.INVISIBLE);
-            Bitmap parentBitmap = captureParentView(parent);
-            setVisibility(View.VISIBLE);
+            long captureStart = System.nanoTime();
             
-            if (parentBitmap != null) {
-                // Get this view's position in parent
-                int[] location = new int[2];
-                getLocationInWindow(location);
-                int[] parentLocation = new int[2];
-                parent.getLocationInWindow(parentLocation);
-                
-                int x = location[0] - parentLocation[0];
-                int y = location[1] - parentLocation[1];
-                
-                // Crop to this view's bounds
-                int cropX = Math.max(0, Math.min(x, parentBitmap.getWidth() - 1));
-                int cropY = Math.max(0, Math.min(y, parentBitmap.getHeight() - 1));
-                int cropWidth = Math.min(getWidth(), parentBitmap.getWidth() - cropX);
-                int cropHeight = Math.min(getHeight(), parentBitmap.getHeight() - cropY);
-                
-                if (cropWidth > 0 && cropHeight > 0) {
-                    Bitmap croppedBitmap = Bitmap.createBitmap(
-                            parentBitmap, cropX, cropY, cropWidth, cropHeight
-                    );
-                    
-                    // Apply blur
-                    mBlurredBitmap = BlurHelper.blur(
-                            mRenderScript, 
-                            croppedBitmap, 
-                            mBlurRadius, 
-                            mDownsampleFactor
-                    );
-                    
-                    croppedBitmap.recycle();
-                }
-                
-                parentBitmap.recycle();
+            // Opaque backdrops (declared via opaqueBackdrop, or an opaque parent fully
+            // behind this view) are captured in RGB_565 and stay 16-bit through the
+            // blur, unless RenderScript is available: it only takes the 565 path slower
+            boolean opaque = mOpaqueBackdrop || isInsideOpaqueParent(parent);
+            Bitmap.Config config = opaque
+                    && BlurHelper.getEngine(mRenderScript, Bitmap.Config.ARGB_8888) != BlurHelper.Engine.RENDERSCRIPT
+                    ? Bitmap.Config.RGB_565
+                    : Bitmap.Config.ARGB_8888;
+            
+            // Capture only what is drawn behind this view, straight into a view-sized
+            // bitmap (scaled down to the pixel budget, if any)
+            float scale = budgetScale();
+            Bitmap backdrop;
+            NimGlassTrace.begin("NimGlass:capture", getId(), getWidth(), getHeight());
+            try {
+                backdrop = mBackdropCapture.capture(
+                        this,
+                        scale > 0 ? scale : 1f,
+                        config,
+                        scale > 0 ? 1 : mDownsampleFactor,
+                        mBackdropCaptured
+                );
+            } finally {
+                NimGlassTrace.end();
+            }
+            
+            if (backdrop != null) {
+                blurBackdrop(backdrop, captureStart, scale);
+            } else if (mBackdropCapture.isPending()) {
+                // Blurred once the surface copies arrive (mBackdropCaptured)
+                mCaptureStartNanos = captureStart;
+                mCaptureScale = scale;
             }
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            NimGlassTrace.end();
         }
         
         mIsRendering = false;
@@ -269,30 +595,292 @@ public class NimGlassBlurView extends FrameLayout {
     }
     
     /**
-     * Capture parent view's drawing
+     * Blur a fresh capture and keep it as the backdrop for transitions
+     * 
+     * @param scale Scale the capture was taken at under maxBlurPixels (0 = no budget)
      */
-    private Bitmap captureParentView(View parent) {
+    private void blurBackdrop(Bitmap backdrop, long captureStart, float scale) {
+        long blurStart = System.nanoTime();
+        mLastCaptureNanos = blurStart - captureStart;
+        
+        // Keep the backdrop for blur transitions; cached levels are stale now
+        releaseBlurLevels();
+        BitmapPool.release(mBackdropBitmap);
+        mBackdropBitmap = backdrop;
+        mBackdropScale = scale;
+        
+        // Apply blur (kept at its downsampled size, scaled when drawn)
+        NimGlassTrace.begin("NimGlass:blur", getId(), backdrop.getWidth(), backdrop.getHeight());
         try {
-            Bitmap bitmap = Bitmap.createBitmap(
-                    parent.getWidth(),
-                    parent.getHeight(),
-                    Bitmap.Config.ARGB_8888
-            );
-            Canvas canvas = new Canvas(bitmap);
-            parent.draw(canvas);
-            return bitmap;
+            if (isProgressive()) {
+                setBlurredBitmap(null);
+                prepareProgressiveLevels();
+            } else {
+                setBlurredBitmap(blurBackdropAt(mBlurRadius));
+            }
         } catch (Exception e) {
-            return null;
+            e.printStackTrace();
+        } finally {
+            NimGlassTrace.end();
+        }
+        mLastBlurNanos = System.nanoTime() - blurStart;
+        mLastEngine = BlurHelper.getEngine(mRenderScript, backdrop.getConfig());
+        
+        if (mBlurTransitionSettled) {
+            // Fresh capture is already blurred at the exact radius
+            mBlurTransitionSettled = false;
+            mInBlurTransition = false;
+        }
+        if (!mInBlurTransition && !isProgressive()) {
+            releaseBackdrop();
+        }
+        
+        // SurfaceView content changes without any signal: refresh at a throttled
+        // rate (TextureViews signal new frames through onSurfacesChanged)
+        mHandler.removeCallbacks(mRefreshSurfaces);
+        if (mBackdropCapture.hasSurfaceViews()) {
+            mHandler.postDelayed(mRefreshSurfaces, SURFACE_REFRESH_MS);
+        }
+    }
+    
+    /**
+     * Whether the parent is opaque and this view lies entirely within its visible
+     * bounds (a part outside it would show whatever is behind the parent)
+     */
+    private boolean isInsideOpaqueParent(View parent) {
+        if (!parent.isOpaque()) {
+            return false;
+        }
+        mBoundsInParent.set(0, 0, getWidth(), getHeight());
+        getMatrix().mapRect(mBoundsInParent);
+        mBoundsInParent.offset(getLeft() - parent.getScrollX(), getTop() - parent.getScrollY());
+        return mBoundsInParent.left >= 0
+                && mBoundsInParent.top >= 0
+                && mBoundsInParent.right <= parent.getWidth()
+                && mBoundsInParent.bottom <= parent.getHeight();
+    }
+    
+    /**
+     * Capture scale that keeps the backdrop within maxBlurPixels (0 = no budget)
+     */
+    private float budgetScale() {
+        if (mMaxBlurPixels <= 0) {
+            return 0f;
+        }
+        float pixels = (float) getWidth() * getHeight();
+        return Math.min(1f, (float) Math.sqrt(mMaxBlurPixels / pixels));
+    }
+    
+    /**
+     * Blur the cached backdrop at a radius, within the pixel budget it was captured under
+     */
+    private Bitmap blurBackdropAt(float radius) {
+        if (mBackdropScale > 0) {
+            return BlurHelper.blurScaled(mRenderScript, mBackdropBitmap, radius, mDownsampleFactor, mBackdropScale);
+        }
+        return BlurHelper.blur(mRenderScript, mBackdropBitmap, radius, mDownsampleFactor, false);
+    }
+    
+    /**
+     * Replace the displayed blur, returning the previous bitmap to the pool
+     */
+    private void setBlurredBitmap(Bitmap bitmap) {
+        if (mBlurredBitmap != null && mBlurredBitmap != bitmap) {
+            BitmapPool.release(mBlurredBitmap);
         }
+        mBlurredBitmap = bitmap;
+    }
+    
+    /**
+     * Index of the cached blur level at or below the current radius
+     */
+    private int lowerBlurLevel() {
+        int index = 0;
+        while (index < BLUR_LEVELS.length - 2 && BLUR_LEVELS[index + 1] <= mBlurRadius) {
+            index++;
+        }
+        return index;
+    }
+    
+    /**
+     * Whether the blur transition is missing a level for the current radius
+     */
+    private boolean needsBlurLevels() {
+        if (mBackdropBitmap == null || mBackdropBitmap.isRecycled()) {
+            return false;
+        }
+        if (isProgressive()) {
+            return !hasProgressiveLevels();
+        }
+        if (!mInBlurTransition) {
+            return false;
+        }
+        int lower = lowerBlurLevel();
+        return getBlurLevel(lower) == null || getBlurLevel(lower + 1) == null;
+    }
+    
+    /**
+     * Blur the levels around the current radius from the cached backdrop.
+     * Each level is blurred at most once per backdrop.
+     */
+    private void prepareBlurLevels() {
+        if (mBackdropBitmap == null || mBackdropBitmap.isRecycled()) {
+            return;
+        }
+        if (isProgressive()) {
+            prepareProgressiveLevels();
+            return;
+        }
+        int lower = lowerBlurLevel();
+        for (int i = lower; i <= lower + 1; i++) {
+            if (mBlurLevels[i] != null) {
+                continue;
+            }
+            NimGlassTrace.begin("NimGlass:blurLevel", getId(), mBackdropBitmap.getWidth(), mBackdropBitmap.getHeight());
+            try {
+                mBlurLevels[i] = blurBackdropAt(BLUR_LEVELS[i]);
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                NimGlassTrace.end();
+            }
+        }
+    }
+    
+    /**
+     * Bitmap for a cached blur level, or null if not blurred yet
+     */
+    private Bitmap getBlurLevel(int index) {
+        Bitmap level = mBlurLevels[index];
+        return level != null && !level.isRecycled() ? level : null;
+    }
+    
+    /**
+     * Drop the backdrop and its levels once nothing re-blurs them (the next
+     * blur transition captures a fresh backdrop)
+     */
+    private void releaseBackdrop() {
+        releaseBlurLevels();
+        BitmapPool.release(mBackdropBitmap);
+        mBackdropBitmap = null;
+    }
+    
+    private void releaseBlurLevels() {
+        for (int i = 0; i < mBlurLevels.length; i++) {
+            if (mBlurLevels[i] != null) {
+                BitmapPool.release(mBlurLevels[i]);
+                mBlurLevels[i] = null;
+            }
+        }
+        mProgressiveShaders = null;
+    }
+    
+    /**
+     * First cached blur level a progressive blur needs (at or below its smallest radius)
+     */
+    private int firstProgressiveLevel() {
+        float low = Math.min(mBlurRadius, mProgressiveEndRadius);
+        int index = 0;
+        while (index < BLUR_LEVELS.length - 2 && BLUR_LEVELS[index + 1] <= low) {
+            index++;
+        }
+        return index;
+    }
+    
+    /**
+     * Last cached blur level a progressive blur needs (at or above its largest radius)
+     */
+    private int lastProgressiveLevel() {
+        float high = Math.max(mBlurRadius, mProgressiveEndRadius);
+        int index = BLUR_LEVELS.length - 1;
+        while (index > 1 && BLUR_LEVELS[index - 1] >= high) {
+            index--;
+        }
+        return index;
+    }
+    
+    private boolean hasProgressiveLevels() {
+        for (int i = firstProgressiveLevel(); i <= lastProgressiveLevel(); i++) {
+            if (getBlurLevel(i) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Blur the levels spanned by the progressive blur from the cached
+     * backdrop, as one chained pyramid rather than one blur per level
+     */
+    private void prepareProgressiveLevels() {
+        if (mBackdropBitmap == null || mBackdropBitmap.isRecycled() || hasProgressiveLevels()) {
+            return;
+        }
+        int first = firstProgressiveLevel();
+        int last = lastProgressiveLevel();
+        float[] radii = new float[last - first + 1];
+        for (int i = first; i <= last; i++) {
+            radii[i - first] = BLUR_LEVELS[i];
+        }
+        
+        NimGlassTrace.begin("NimGlass:pyramid", getId(), mBackdropBitmap.getWidth(), mBackdropBitmap.getHeight());
+        try {
+            Bitmap[] levels = mBackdropScale > 0
+                    ? BlurHelper.blurPyramidScaled(mRenderScript, mBackdropBitmap, radii, mDownsampleFactor, mBackdropScale)
+                    : BlurHelper.blurPyramid(mRenderScript, mBackdropBitmap, radii, mDownsampleFactor);
+            for (int i = first; i <= last; i++) {
+                Bitmap level = levels[i - first];
+                if (mBlurLevels[i] == null) {
+                    mBlurLevels[i] = level;
+                } else {
+                    // Already cached (e.g. by a blur transition)
+                    BitmapPool.release(level);
+                }
+            }
+            mProgressiveShaders = null;
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            NimGlassTrace.end();
+        }
+    }
+    
+    /**
+     * Radius animation has settled: blur the cached backdrop once at the exact radius
+     */
+    private void settleBlurTransition() {
+        mBlurTransitionSettled = false;
+        mInBlurTransition = false;
+        if (mBackdropBitmap != null && !mBackdropBitmap.isRecycled()) {
+            NimGlassTrace.begin("NimGlass:settle", getId(), mBackdropBitmap.getWidth(), mBackdropBitmap.getHeight());
+            long blurStart = System.nanoTime();
+            try {
+                setBlurredBitmap(blurBackdropAt(mBlurRadius));
+                mLastBlurNanos = System.nanoTime() - blurStart;
+                mLastEngine = BlurHelper.getEngine(mRenderScript, mBackdropBitmap.getConfig());
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                NimGlassTrace.end();
+            }
+        }
+        if (!isProgressive()) {
+            releaseBackdrop();
+        }
+        invalidate();
     }
     
     @Override
     protected void onDraw(@NonNull Canvas canvas) {
         super.onDraw(canvas);
         
+        long drawStart = System.nanoTime();
+        NimGlassTrace.begin("NimGlass:draw", getId(), getWidth(), getHeight());
+        
         float width = getWidth();
         float height = getHeight();
-        RectF rect = new RectF(0, 0, width, height);
+        RectF rect = mDrawRect;
+        rect.set(0, 0, width, height);
         
         // Save for clipping
         canvas.save();
@@ -303,13 +891,15 @@ public class NimGlassBlurView extends FrameLayout {
         }
         
         // Draw blurred background
-        if (mBlurredBitmap != null && !mBlurredBitmap.isRecycled()) {
+        if (isProgressive() && drawProgressiveBlur(canvas, rect)) {
+            // Blended between pyramid levels along the gradient
+        } else if (mInBlurTransition && drawBlurTransition(canvas, rect)) {
+            // Cross-faded between cached blur levels
+        } else if (mBlurredBitmap != null && !mBlurredBitmap.isRecycled()) {
             canvas.drawBitmap(mBlurredBitmap, null, rect, mBitmapPaint);
         } else {
             // Fallback: semi-transparent background
-            Paint fallbackPaint = new Paint();
-            fallbackPaint.setColor(Color.argb(180, 255, 255, 255));
-            canvas.drawRoundRect(rect, mCornerRadius, mCornerRadius, fallbackPaint);
+            canvas.drawRoundRect(rect, mCornerRadius, mCornerRadius, mFallbackPaint);
         }
         
         // Draw tint overlay
@@ -323,7 +913,155 @@ public class NimGlassBlurView extends FrameLayout {
         // Draw border highlight
         canvas.drawRoundRect(rect, mCornerRadius, mCornerRadius, mBorderPaint);
         
+        if (mDebugOverlay) {
+            drawDebugOverlay(canvas);
+        }
+        
         canvas.restore();
+        
+        NimGlassTrace.end();
+        mLastDrawNanos = System.nanoTime() - drawStart;
+    }
+    
+    /**
+     * Draw pipeline timings (draw time is from the previous frame)
+     */
+    private void drawDebugOverlay(Canvas canvas) {
+        String[] lines = {
+                String.format(Locale.US, "capture %.2f ms", mLastCaptureNanos / 1e6),
+                String.format(Locale.US, "blur %.2f ms %s", mLastBlurNanos / 1e6, mLastEngine),
+                String.format(Locale.US, "draw %.2f ms", mLastDrawNanos / 1e6),
+        };
+        
+        Paint.FontMetrics metrics = mDebugTextPaint.getFontMetrics();
+        float lineHeight = metrics.descent - metrics.ascent;
+        float padding = lineHeight / 4;
+        float textWidth = 0;
+        for (String line : lines) {
+            textWidth = Math.max(textWidth, mDebugTextPaint.measureText(line));
+        }
+        
+        canvas.drawRect(0, 0, textWidth + padding * 2, lineHeight * lines.length + padding * 2,
+                mDebugBackgroundPaint);
+        for (int i = 0; i < lines.length; i++) {
+            canvas.drawText(lines[i], padding, padding + lineHeight * i - metrics.ascent, mDebugTextPaint);
+        }
+    }
+    
+    /**
+     * Cross-fade the two cached blur levels around the current radius
+     * 
+     * @return false if the levels are not ready yet
+     */
+    private boolean drawBlurTransition(Canvas canvas, RectF rect) {
+        int lower = lowerBlurLevel();
+        Bitmap lowerBitmap = getBlurLevel(lower);
+        Bitmap upperBitmap = getBlurLevel(lower + 1);
+        if (lowerBitmap == null || upperBitmap == null) {
+            return false;
+        }
+        
+        float fraction = (mBlurRadius - BLUR_LEVELS[lower])
+                / (BLUR_LEVELS[lower + 1] - BLUR_LEVELS[lower]);
+        fraction = Math.max(0f, Math.min(1f, fraction));
+        
+        canvas.drawBitmap(lowerBitmap, null, rect, mBitmapPaint);
+        mLevelPaint.setAlpha((int) (fraction * 255));
+        canvas.drawBitmap(upperBitmap, null, rect, mLevelPaint);
+        return true;
+    }
+    
+    /**
+     * Draw the progressive blur: for each band between two cached levels,
+     * the lower level and the upper level masked by an alpha gradient
+     * 
+     * @return false if the levels are not ready yet
+     */
+    private boolean drawProgressiveBlur(Canvas canvas, RectF rect) {
+        if (!hasProgressiveLevels()) {
+            return false;
+        }
+        if (mProgressiveShaders == null) {
+            buildProgressiveShaders(rect);
+        }
+        
+        boolean vertical = mProgressiveDirection == DIRECTION_TO_BOTTOM
+                || mProgressiveDirection == DIRECTION_TO_TOP;
+        float length = vertical ? rect.height() : rect.width();
+        int first = firstProgressiveLevel();
+        int last = lastProgressiveLevel();
+        for (int i = first; i < last; i++) {
+            float a = progressivePosition(BLUR_LEVELS[i], rect);
+            float b = progressivePosition(BLUR_LEVELS[i + 1], rect);
+            if (i == first) {
+                // Radii below the lowest level show the lowest level
+                a = a < b ? Math.min(a, 0f) : Math.max(a, length);
+            }
+            float bandStart = Math.max(Math.min(a, b), 0f);
+            float bandEnd = Math.min(Math.max(a, b), length);
+            if (bandEnd <= bandStart) {
+                continue;
+            }
+            
+            canvas.save();
+            if (vertical) {
+                canvas.clipRect(rect.left, rect.top + bandStart, rect.right, rect.top + bandEnd);
+            } else {
+                canvas.clipRect(rect.left + bandStart, rect.top, rect.left + bandEnd, rect.bottom);
+            }
+            canvas.drawBitmap(getBlurLevel(i), null, rect, mBitmapPaint);
+            mProgressivePaint.setShader(mProgressiveShaders[i + 1]);
+            canvas.drawRect(rect, mProgressivePaint);
+            canvas.restore();
+        }
+        mProgressivePaint.setShader(null);
+        return true;
+    }
+    
+    /**
+     * Upper level of each band scaled to the view, faded in across the band
+     */
+    private void buildProgressiveShaders(RectF rect) {
+        mProgressiveShaders = new Shader[BLUR_LEVELS.length];
+        boolean vertical = mProgressiveDirection == DIRECTION_TO_BOTTOM
+                || mProgressiveDirection == DIRECTION_TO_TOP;
+        int last = lastProgressiveLevel();
+        for (int i = firstProgressiveLevel(); i < last; i++) {
+            Bitmap upper = getBlurLevel(i + 1);
+            BitmapShader levelShader = new BitmapShader(upper, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+            Matrix matrix = new Matrix();
+            matrix.setRectToRect(
+                    new RectF(0, 0, upper.getWidth(), upper.getHeight()),
+                    rect,
+                    Matrix.ScaleToFit.FILL
+            );
+            levelShader.setLocalMatrix(matrix);
+            
+            // Transparent where the radius is the lower level, opaque at the upper
+            float from = progressivePosition(BLUR_LEVELS[i], rect);
+            float to = progressivePosition(BLUR_LEVELS[i + 1], rect);
+            LinearGradient mask = vertical
+                    ? new LinearGradient(0, rect.top + from, 0, rect.top + to,
+                            Color.TRANSPARENT, Color.BLACK, Shader.TileMode.CLAMP)
+                    : new LinearGradient(rect.left + from, 0, rect.left + to, 0,
+                            Color.TRANSPARENT, Color.BLACK, Shader.TileMode.CLAMP);
+            mProgressiveShaders[i + 1] = new ComposeShader(levelShader, mask, PorterDuff.Mode.DST_IN);
+        }
+    }
+    
+    /**
+     * Offset along the progressive direction where the radius reaches a value
+     * (may lie outside the view)
+     */
+    private float progressivePosition(float radius, RectF rect) {
+        boolean vertical = mProgressiveDirection == DIRECTION_TO_BOTTOM
+                || mProgressiveDirection == DIRECTION_TO_TOP;
+        float length = vertical ? rect.height() : rect.width();
+        float fraction = (radius - mBlurRadius) / (mProgressiveEndRadius - mBlurRadius);
+        if (mProgressiveDirection == DIRECTION_TO_TOP || mProgressiveDirection == DIRECTION_TO_LEFT) {
+            fraction = 1f - fraction;
+        }
+        return fraction * length;
     }
     
     /**
@@ -332,25 +1070,29 @@ public class NimGlassBlurView extends FrameLayout {
     private void drawInsetShadows(Canvas canvas, RectF rect) {
         // Top inset shadow
         if (mInsetShadowTop > 0) {
-            LinearGradient topGradient = new LinearGradient(
-                    0, 0, 0, mInsetShadowBlur,
-                    mInsetShadowColor,
-                    Color.TRANSPARENT,
-                    Shader.TileMode.CLAMP
-            );
-            mInsetShadowPaint.setShader(topGradient);
+            if (mTopShadowShader == null) {
+                mTopShadowShader = new LinearGradient(
+                        0, 0, 0, mInsetShadowBlur,
+                        mInsetShadowColor,
+                        Color.TRANSPARENT,
+                        Shader.TileMode.CLAMP
+                );
+            }
+            mInsetShadowPaint.setShader(mTopShadowShader);
             canvas.drawRect(0, 0, rect.width(), mInsetShadowBlur, mInsetShadowPaint);
         }
         
         // Left inset shadow
         if (mInsetShadowLeft > 0) {
-            LinearGradient leftGradient = new LinearGradient(
-                    0, 0, mInsetShadowBlur, 0,
-                    mInsetShadowColor,
-                    Color.TRANSPARENT,
-                    Shader.TileMode.CLAMP
-            );
-            mInsetShadowPaint.setShader(leftGradient);
+            if (mLeftShadowShader == null) {
+                mLeftShadowShader = new LinearGradient(
+                        0, 0, mInsetShadowBlur, 0,
+                        mInsetShadowColor,
+                        Color.TRANSPARENT,
+                        Shader.TileMode.CLAMP
+                );
+            }
+            mInsetShadowPaint.setShader(mLeftShadowShader);
             canvas.drawRect(0, 0, mInsetShadowBlur, rect.height(), mInsetShadowPaint);
         }
     }
@@ -400,25 +1142,99 @@ public class NimGlassBlurView extends FrameLayout {
         invalidate();
     }
     
+    @Override
+    public void onHostResume() {
+        mHostPaused = false;
+        refresh();
+    }
+    
+    @Override
+    public void onHostPause() {
+        mHostPaused = true;
+    }
+    
+    @Override
+    public void onHostDestroy() {
+        mHostPaused = true;
+    }
+    
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (visibility == View.VISIBLE) {
+            refresh();
+        }
+    }
+    
+    @Override
+    public void onWindowFocusChanged(boolean hasWindowFocus) {
+        super.onWindowFocusChanged(hasWindowFocus);
+        mHandler.removeCallbacks(mCoverWindow);
+        if (!hasWindowFocus) {
+            mHandler.postDelayed(mCoverWindow, WINDOW_FOCUS_GRACE_MS);
+        } else if (mWindowCovered) {
+            mWindowCovered = false;
+            refresh();
+        }
+    }
+    
+    /**
+     * Whether the activity shares the screen with others (split screen, freeform,
+     * picture-in-picture), where losing focus does not mean being covered
+     */
+    private boolean isInMultiWindowMode() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N || !(getContext() instanceof ReactContext)) {
+            return false;
+        }
+        Activity activity = ((ReactContext) getContext()).getCurrentActivity();
+        return activity != null && activity.isInMultiWindowMode();
+    }
+    
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        
+        // Pause blur work with the React host (app backgrounded, activity covered)
+        if (getContext() instanceof ReactContext) {
+            ReactContext reactContext = (ReactContext) getContext();
+            reactContext.addLifecycleEventListener(this);
+            mHostPaused = reactContext.getLifecycleState() != LifecycleState.RESUMED;
+        }
+        mNeedsRedraw = true;
+    }
+    
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
         
-        // Clean up
-        if (mBlurredBitmap != null && !mBlurredBitmap.isRecycled()) {
-            mBlurredBitmap.recycle();
-            mBlurredBitmap = null;
+        if (getContext() instanceof ReactContext) {
+            ((ReactContext) getContext()).removeLifecycleEventListener(this);
         }
+        BlurScheduler.getInstance().cancel(this);
+        mBackdropCapture.release();
+        mHandler.removeCallbacks(mRefreshSurfaces);
+        mHandler.removeCallbacks(mCoverWindow);
+        mWindowCovered = false;
+        removeCallbacks(mCheckTextures);
+        mTextureCheckPosted = false;
+        BitmapPool.release(mCapturedBackdrop);
+        mCapturedBackdrop = null;
+        
+        // Clean up
+        BitmapPool.release(mBlurredBitmap);
+        mBlurredBitmap = null;
+        
+        mHandler.removeCallbacks(mSettleBlurTransition);
+        mInBlurTransition = false;
+        mBlurTransitionSettled = false;
+        releaseBackdrop();
         
-        if (mRenderScript != null) {
-            mRenderScript.destroy();
-            mRenderScript = null;
-        }
     }
     
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
         mNeedsRedraw = true;
+        mProgressiveShaders = null;
     }
 }
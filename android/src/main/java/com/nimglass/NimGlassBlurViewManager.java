@@ -4,7 +4,6 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.facebook.react.common.MapBuilder;
-import com.facebook.react.uimanager.SimpleViewManager;
 import com.facebook.react.uimanager.ThemedReactContext;
 import com.facebook.react.uimanager.annotations.ReactProp;
 
@@ -14,8 +13,11 @@ import java.util.Map;
  * NimGlassBlurViewManager - React Native View Manager
  * 
  * Manages the native blur view component and exposes props to React Native.
+ * Under the New Architecture, props and commands arrive through the
+ * codegen delegate (see NimGlassBlurViewManagerSpec); the @ReactProp
+ * annotations serve the legacy bridge.
  */
-public class NimGlassBlurViewManager extends SimpleViewManager<NimGlassBlurView> {
+public class NimGlassBlurViewManager extends NimGlassBlurViewManagerSpec<NimGlassBlurView> {
     
     public static final String REACT_CLASS = "NimGlassBlurView";
     
@@ -34,6 +36,7 @@ public class NimGlassBlurViewManager extends SimpleViewManager<NimGlassBlurView>
     /**
      * Set blur radius prop (1-100)
      */
+    @Override
     @ReactProp(name = "blurRadius", defaultFloat = 25f)
     public void setBlurRadius(NimGlassBlurView view, float blurRadius) {
         view.setBlurRadius(blurRadius);
@@ -43,14 +46,61 @@ public class NimGlassBlurViewManager extends SimpleViewManager<NimGlassBlurView>
      * Set downsample factor for performance (1-8)
      * Higher = faster but lower quality
      */
+    @Override
     @ReactProp(name = "downsampleFactor", defaultInt = 4)
     public void setDownsampleFactor(NimGlassBlurView view, int factor) {
         view.setDownsampleFactor(factor);
     }
     
+    /**
+     * Cap the captured backdrop at this many pixels (0 = no cap)
+     */
+    @Override
+    @ReactProp(name = "maxBlurPixels", defaultInt = 0)
+    public void setMaxBlurPixels(NimGlassBlurView view, int pixels) {
+        view.setMaxBlurPixels(pixels);
+    }
+    
+    /**
+     * Set the blur radius at the end edge of a progressive blur (0-100, -1 = uniform)
+     */
+    @Override
+    @ReactProp(name = "progressiveEndRadius", defaultFloat = -1f)
+    public void setProgressiveEndRadius(NimGlassBlurView view, float radius) {
+        view.setProgressiveEndRadius(radius);
+    }
+    
+    /**
+     * Set the progressive blur direction (toBottom, toTop, toRight, toLeft)
+     */
+    @Override
+    @ReactProp(name = "progressiveDirection")
+    public void setProgressiveDirection(NimGlassBlurView view, @Nullable String direction) {
+        view.setProgressiveDirection(direction);
+    }
+    
+    /**
+     * Declare the backdrop opaque to capture and blur in RGB_565
+     */
+    @Override
+    @ReactProp(name = "opaqueBackdrop", defaultBoolean = false)
+    public void setOpaqueBackdrop(NimGlassBlurView view, boolean opaque) {
+        view.setOpaqueBackdrop(opaque);
+    }
+    
+    /**
+     * Draw pipeline timings and blur engine on top of the view
+     */
+    @Override
+    @ReactProp(name = "debugOverlay", defaultBoolean = false)
+    public void setDebugOverlay(NimGlassBlurView view, boolean enabled) {
+        view.setDebugOverlay(enabled);
+    }
+    
     /**
      * Set tint color prop
      */
+    @Override
     @ReactProp(name = "tintColor")
     public void setTintColor(NimGlassBlurView view, @Nullable String tintColor) {
         if (tintColor != null) {
@@ -61,6 +111,7 @@ public class NimGlassBlurViewManager extends SimpleViewManager<NimGlassBlurView>
     /**
      * Set tint opacity (0-1)
      */
+    @Override
     @ReactProp(name = "tintOpacity", defaultFloat = 0.15f)
     public void setTintOpacity(NimGlassBlurView view, float opacity) {
         view.setTintOpacity(opacity);
@@ -69,6 +120,7 @@ public class NimGlassBlurViewManager extends SimpleViewManager<NimGlassBlurView>
     /**
      * Set corner radius
      */
+    @Override
     @ReactProp(name = "cornerRadius", defaultFloat = 16f)
     public void setCornerRadius(NimGlassBlurView view, float radius) {
         view.setCornerRadius(radius);
@@ -77,6 +129,7 @@ public class NimGlassBlurViewManager extends SimpleViewManager<NimGlassBlurView>
     /**
      * Enable/disable inset shadow
      */
+    @Override
     @ReactProp(name = "showInsetShadow", defaultBoolean = false)
     public void setShowInsetShadow(NimGlassBlurView view, boolean show) {
         view.setShowInsetShadow(show);
@@ -85,6 +138,7 @@ public class NimGlassBlurViewManager extends SimpleViewManager<NimGlassBlurView>
     /**
      * Set inset shadow blur radius
      */
+    @Override
     @ReactProp(name = "insetShadowBlur", defaultFloat = 12f)
     public void setInsetShadowBlur(NimGlassBlurView view, float blur) {
         view.setInsetShadowBlur(blur);
@@ -98,7 +152,15 @@ public class NimGlassBlurViewManager extends SimpleViewManager<NimGlassBlurView>
     }
     
     /**
-     * Native commands that can be called from JS
+     * Force the view to re-capture and re-blur its backdrop
+     */
+    @Override
+    public void refresh(NimGlassBlurView view) {
+        view.refresh();
+    }
+    
+    /**
+     * Native commands that can be called from JS (legacy bridge)
      */
     @Override
     public Map<String, Integer> getCommandsMap() {
@@ -117,7 +179,7 @@ public class NimGlassBlurViewManager extends SimpleViewManager<NimGlassBlurView>
             @Nullable com.facebook.react.bridge.ReadableArray args
     ) {
         if ("refresh".equals(commandId) || "1".equals(commandId)) {
-            view.refresh();
+            refresh(view);
         }
     }
 }
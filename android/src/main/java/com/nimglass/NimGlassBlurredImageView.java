@@ -0,0 +1,289 @@
+package com.nimglass;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * NimGlassBlurredImageView - Pre-blurred image backdrop
+ * 
+ * Shows a known image (profile header, album art, ...) blurred, without
+ * capturing live content. The image is decoded and blurred off the UI
+ * thread, and the result is kept in memory and in BlurDiskCache, so
+ * remounts and warm launches show it without decoding or blurring again.
+ */
+public class NimGlassBlurredImageView extends ImageView {
+    
+    private static final String TAG = "NimGlass";
+    
+    // Sources are decoded no larger than this (the result is blurred anyway)
+    private static final int MAX_DECODE_SIZE = 1024;
+    
+    // Network sources give up instead of holding a loader thread indefinitely
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 15000;
+    
+    private static final ExecutorService sExecutor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(runnable, "NimGlassBlurredImage");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+    
+    private static final LruCache<String, Bitmap> sMemoryCache = new LruCache<String, Bitmap>(
+            (int) Math.min(Runtime.getRuntime().maxMemory() / 16, Integer.MAX_VALUE)
+    ) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getAllocationByteCount();
+        }
+    };
+    
+    private static BlurDiskCache sDiskCache;
+    
+    // Props
+    @Nullable
+    private String mSourceUri;
+    private float mBlurRadius = 25f;
+    private int mDownsampleFactor = 4;
+    
+    // State
+    private boolean mNeedsLoad = false;
+    private int mLoadGeneration = 0;
+    
+    public NimGlassBlurredImageView(@NonNull Context context) {
+        super(context);
+        setScaleType(ScaleType.CENTER_CROP);
+    }
+    
+    /**
+     * Set image source URI (http(s), file, content, or a bundled resource name)
+     */
+    public void setSourceUri(@Nullable String uri) {
+        if (uri == null ? mSourceUri == null : uri.equals(mSourceUri)) {
+            return;
+        }
+        mSourceUri = uri;
+        mNeedsLoad = true;
+    }
+    
+    /**
+     * Set blur radius (1-100)
+     */
+    public void setBlurRadius(float radius) {
+        float blurRadius = Math.max(1f, Math.min(100f, radius));
+        if (blurRadius != mBlurRadius) {
+            mBlurRadius = blurRadius;
+            mNeedsLoad = true;
+        }
+    }
+    
+    /**
+     * Set downsample factor (1-8)
+     */
+    public void setDownsampleFactor(int factor) {
+        int downsampleFactor = Math.max(1, Math.min(8, factor));
+        if (downsampleFactor != mDownsampleFactor) {
+            mDownsampleFactor = downsampleFactor;
+            mNeedsLoad = true;
+        }
+    }
+    
+    /**
+     * Set resize mode: cover, contain or stretch
+     */
+    public void setResizeMode(@Nullable String resizeMode) {
+        if ("contain".equals(resizeMode)) {
+            setScaleType(ScaleType.FIT_CENTER);
+        } else if ("stretch".equals(resizeMode)) {
+            setScaleType(ScaleType.FIT_XY);
+        } else {
+            setScaleType(ScaleType.CENTER_CROP);
+        }
+    }
+    
+    /**
+     * Start loading if a prop affecting the blurred image changed
+     * (called once per prop update batch)
+     */
+    public void loadIfNeeded() {
+        if (!mNeedsLoad) {
+            return;
+        }
+        mNeedsLoad = false;
+        final int generation = ++mLoadGeneration;
+        
+        final String uri = mSourceUri;
+        if (uri == null || uri.isEmpty()) {
+            setImageDrawable(null);
+            return;
+        }
+        
+        final float blurRadius = mBlurRadius;
+        final int downsampleFactor = mDownsampleFactor;
+        // In-memory entries live for the process; the disk key adds the source's version
+        final String key = BlurDiskCache.key(uri, "", blurRadius, downsampleFactor);
+        
+        Bitmap cached = sMemoryCache.get(key);
+        if (cached != null) {
+            setImageBitmap(cached);
+            return;
+        }
+        
+        final Context appContext = getContext().getApplicationContext();
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = loadBlurred(appContext, uri, blurRadius, downsampleFactor);
+                if (bitmap == null) {
+                    return;
+                }
+                sMemoryCache.put(key, bitmap);
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Ignore results for props that have changed since
+                        if (generation == mLoadGeneration) {
+                            setImageBitmap(bitmap);
+                        }
+                    }
+                });
+            }
+        });
+    }
+    
+    /**
+     * Disk cache hit, or decode + blur + store (background thread)
+     */
+    @Nullable
+    private static Bitmap loadBlurred(
+            Context context,
+            String uri,
+            float blurRadius,
+            int downsampleFactor
+    ) {
+        BlurDiskCache diskCache = getDiskCache(context);
+        
+        NimGlassTrace.begin("NimGlass:imageCacheRead");
+        String key = BlurDiskCache.key(
+                uri, BlurDiskCache.sourceVersion(context, uri), blurRadius, downsampleFactor);
+        Bitmap cached = diskCache.get(key);
+        NimGlassTrace.end();
+        if (cached != null) {
+            return cached;
+        }
+        
+        try {
+            NimGlassTrace.begin("NimGlass:imageDecode");
+            Bitmap decoded;
+            try {
+                decoded = decode(readSource(context, uri));
+            } finally {
+                NimGlassTrace.end();
+            }
+            if (decoded == null) {
+                return null;
+            }
+            
+            // Software engines only: RenderScript's shared context belongs to the UI thread
+            NimGlassTrace.begin("NimGlass:imageBlur", decoded.getWidth(), decoded.getHeight());
+            Bitmap blurred;
+            try {
+                blurred = BlurHelper.blur(null, decoded, blurRadius, downsampleFactor, false);
+            } finally {
+                NimGlassTrace.end();
+            }
+            decoded.recycle();
+            
+            diskCache.put(key, blurred);
+            return blurred;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Failed to load blurred image " + uri, e);
+            return null;
+        }
+    }
+    
+    private static synchronized BlurDiskCache getDiskCache(Context context) {
+        if (sDiskCache == null) {
+            sDiskCache = new BlurDiskCache(context);
+        }
+        return sDiskCache;
+    }
+    
+    /**
+     * Read the whole source into memory (network, file, content or resource)
+     */
+    private static byte[] readSource(Context context, String uri) throws IOException {
+        InputStream input;
+        if (uri.startsWith("http://") || uri.startsWith("https://")) {
+            URLConnection connection = new URL(uri).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            input = connection.getInputStream();
+        } else if (uri.contains(":")) {
+            input = context.getContentResolver().openInputStream(Uri.parse(uri));
+        } else {
+            // Bundled image in release builds: drawable resource name
+            int id = context.getResources().getIdentifier(uri, "drawable", context.getPackageName());
+            if (id == 0) {
+                throw new IOException("Unknown image source " + uri);
+            }
+            input = context.getResources().openRawResource(id);
+        }
+        if (input == null) {
+            throw new IOException("Cannot open image source " + uri);
+        }
+        
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] chunk = new byte[16 * 1024];
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                output.write(chunk, 0, read);
+            }
+            return output.toByteArray();
+        } finally {
+            input.close();
+        }
+    }
+    
+    /**
+     * Decode subsampled to at most MAX_DECODE_SIZE; opaque images decode to RGB_565
+     */
+    @Nullable
+    private static Bitmap decode(byte[] data) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        
+        int sampleSize = 1;
+        while (Math.max(options.outWidth, options.outHeight) / (sampleSize * 2) >= MAX_DECODE_SIZE) {
+            sampleSize *= 2;
+        }
+        
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        // Decoders fall back to ARGB_8888 for images with alpha
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        options.inMutable = true;
+        return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    }
+}
@@ -0,0 +1,72 @@
+package com.nimglass;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.uimanager.ThemedReactContext;
+import com.facebook.react.uimanager.annotations.ReactProp;
+
+/**
+ * NimGlassBlurredImageViewManager - React Native View Manager
+ * 
+ * Manages the pre-blurred image component. Props are applied as a batch;
+ * the image is (re)loaded once per batch in onAfterUpdateTransaction.
+ */
+public class NimGlassBlurredImageViewManager extends NimGlassBlurredImageViewManagerSpec<NimGlassBlurredImageView> {
+    
+    public static final String REACT_CLASS = "NimGlassBlurredImageView";
+    
+    @Override
+    @NonNull
+    public String getName() {
+        return REACT_CLASS;
+    }
+    
+    @Override
+    @NonNull
+    protected NimGlassBlurredImageView createViewInstance(@NonNull ThemedReactContext context) {
+        return new NimGlassBlurredImageView(context);
+    }
+    
+    /**
+     * Set image source URI (resolved on the JS side)
+     */
+    @Override
+    @ReactProp(name = "sourceUri")
+    public void setSourceUri(NimGlassBlurredImageView view, @Nullable String sourceUri) {
+        view.setSourceUri(sourceUri);
+    }
+    
+    /**
+     * Set blur radius prop (1-100)
+     */
+    @Override
+    @ReactProp(name = "blurRadius", defaultFloat = 25f)
+    public void setBlurRadius(NimGlassBlurredImageView view, float blurRadius) {
+        view.setBlurRadius(blurRadius);
+    }
+    
+    /**
+     * Set downsample factor (1-8)
+     */
+    @Override
+    @ReactProp(name = "downsampleFactor", defaultInt = 4)
+    public void setDownsampleFactor(NimGlassBlurredImageView view, int factor) {
+        view.setDownsampleFactor(factor);
+    }
+    
+    /**
+     * Set resize mode: cover, contain or stretch
+     */
+    @Override
+    @ReactProp(name = "resizeMode")
+    public void setResizeMode(NimGlassBlurredImageView view, @Nullable String resizeMode) {
+        view.setResizeMode(resizeMode);
+    }
+    
+    @Override
+    protected void onAfterUpdateTransaction(@NonNull NimGlassBlurredImageView view) {
+        super.onAfterUpdateTransaction(view);
+        view.loadIfNeeded();
+    }
+}
@@ -2,8 +2,8 @@ package com.nimglass;
 
 import androidx.annotation.NonNull;
 
+import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.module.annotations.ReactModule;
 
@@ -11,9 +11,11 @@ import com.facebook.react.module.annotations.ReactModule;
  * NimGlass Native Module
  * 
  * Provides utility methods for blur effects.
+ * Exposed as a TurboModule under the New Architecture (see NimGlassSpec)
+ * and created lazily by NimGlassPackage.
  */
 @ReactModule(name = NimGlassModule.NAME)
-public class NimGlassModule extends ReactContextBaseJavaModule {
+public class NimGlassModule extends NimGlassSpec {
     public static final String NAME = "NimGlass";
 
     public NimGlassModule(ReactApplicationContext reactContext) {
@@ -29,6 +31,7 @@ public class NimGlassModule extends ReactContextBaseJavaModule {
     /**
      * Check if device supports hardware blur (Android 12+)
      */
+    @Override
     @ReactMethod(isBlockingSynchronousMethod = true)
     public boolean supportsHardwareBlur() {
         return android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.S;
@@ -37,8 +40,24 @@ public class NimGlassModule extends ReactContextBaseJavaModule {
     /**
      * Get the Android API level
      */
+    @Override
     @ReactMethod(isBlockingSynchronousMethod = true)
-    public int getApiLevel() {
+    public double getApiLevel() {
         return android.os.Build.VERSION.SDK_INT;
     }
+
+    /**
+     * Warm up the blur engine on a background thread
+     * Resolves once RenderScript, the blur code paths and the bitmap pool are ready.
+     */
+    @Override
+    @ReactMethod
+    public void prewarm(final Promise promise) {
+        BlurHelper.prewarmAsync(getReactApplicationContext(), new Runnable() {
+            @Override
+            public void run() {
+                promise.resolve(null);
+            }
+        });
+    }
 }
@@ -1,36 +1,84 @@
 package com.nimglass;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
-import com.facebook.react.ReactPackage;
+import com.facebook.react.TurboReactPackage;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
 import com.facebook.react.uimanager.ViewManager;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * NimGlass React Native Package
  * 
- * Registers the native blur view manager for React Native.
+ * Registers the native blur view managers for React Native.
+ * The NimGlass module is only constructed when first requested from JS.
+ * 
+ * Pass prewarm=true to warm up the blur engine in the background as soon
+ * as the package is attached to a React context.
  */
-public class NimGlassPackage implements ReactPackage {
+public class NimGlassPackage extends TurboReactPackage {
+
+    private final boolean mPrewarm;
+
+    public NimGlassPackage() {
+        this(false);
+    }
+
+    public NimGlassPackage(boolean prewarm) {
+        mPrewarm = prewarm;
+    }
+
+    @Nullable
+    @Override
+    public NativeModule getModule(@NonNull String name, @NonNull ReactApplicationContext reactContext) {
+        if (NimGlassModule.NAME.equals(name)) {
+            maybePrewarm(reactContext);
+            return new NimGlassModule(reactContext);
+        }
+        return null;
+    }
 
-    @NonNull
     @Override
-    public List<NativeModule> createNativeModules(@NonNull ReactApplicationContext reactContext) {
-        List<NativeModule> modules = new ArrayList<>();
-        modules.add(new NimGlassModule(reactContext));
-        return modules;
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        return new ReactModuleInfoProvider() {
+            @Override
+            public Map<String, ReactModuleInfo> getReactModuleInfos() {
+                Map<String, ReactModuleInfo> moduleInfos = new HashMap<>();
+                moduleInfos.put(NimGlassModule.NAME, new ReactModuleInfo(
+                        NimGlassModule.NAME,
+                        NimGlassModule.class.getName(),
+                        false, // canOverrideExistingModule
+                        false, // needsEagerInit
+                        false, // hasConstants
+                        false, // isCxxModule
+                        BuildConfig.IS_NEW_ARCHITECTURE_ENABLED // isTurboModule
+                ));
+                return moduleInfos;
+            }
+        };
     }
 
     @NonNull
     @Override
     public List<ViewManager> createViewManagers(@NonNull ReactApplicationContext reactContext) {
+        maybePrewarm(reactContext);
         List<ViewManager> viewManagers = new ArrayList<>();
         viewManagers.add(new NimGlassBlurViewManager());
+        viewManagers.add(new NimGlassBlurredImageViewManager());
         return viewManagers;
     }
+
+    private void maybePrewarm(ReactApplicationContext reactContext) {
+        if (mPrewarm) {
+            BlurHelper.prewarmAsync(reactContext, null);
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package com.nimglass;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * NimGlassTrace - systrace/Perfetto sections for the glass pipeline
+ * 
+ * Section names are constants; view ids and sizes are appended only while
+ * a trace is being recorded (API 29+), so the render path does not build
+ * strings otherwise. Every begin must be paired with end on the same thread;
+ * async sections (API 29+) may end on a later frame, matched by cookie.
+ */
+final class NimGlassTrace {
+    
+    private NimGlassTrace() {
+    }
+    
+    /**
+     * Whether a trace is recording and sections can carry dynamic labels
+     */
+    static boolean isTagging() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && Trace.isEnabled();
+    }
+    
+    static void begin(String section) {
+        Trace.beginSection(section);
+    }
+    
+    /**
+     * Begin a section tagged with a size, e.g. "NimGlass:downsample 270x90"
+     */
+    static void begin(String section, int width, int height) {
+        if (isTagging()) {
+            Trace.beginSection(section + " " + width + "x" + height);
+        } else {
+            Trace.beginSection(section);
+        }
+    }
+    
+    /**
+     * Begin a section tagged with a view id and size, e.g. "NimGlass:capture #42 1080x360"
+     */
+    static void begin(String section, int viewId, int width, int height) {
+        if (isTagging()) {
+            Trace.beginSection(section + " #" + viewId + " " + width + "x" + height);
+        } else {
+            Trace.beginSection(section);
+        }
+    }
+    
+    static void end() {
+        Trace.endSection();
+    }
+    
+    /**
+     * Begin an async section, e.g. a PixelCopy that completes on a later frame
+     */
+    static void beginAsync(String section, int cookie) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(section, cookie);
+        }
+    }
+    
+    static void endAsync(String section, int cookie) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(section, cookie);
+        }
+    }
+}
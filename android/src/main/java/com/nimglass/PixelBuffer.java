@@ -0,0 +1,398 @@
+package com.nimglass;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import java.nio.IntBuffer;
+
+/**
+ * PixelBuffer - Reusable pixel buffer for the Java stack blur
+ * 
+ * Holds one bitmap's pixels in an int[] (plus the kernel's scratch arrays)
+ * that is reused from blur to blur, so a Java blur reads the bitmap once,
+ * downsamples it and runs every pass in place, and writes the result
+ * once, without allocating per pass.
+ * 
+ * ARGB_8888 pixels are transferred with copyPixelsToBuffer and
+ * copyPixelsFromBuffer: a plain memory copy of the premultiplied pixels
+ * (channel order does not matter to the kernel, alpha stays in the top
+ * byte). RGB_565 pixels are expanded through getPixels/setPixels.
+ * 
+ * Alpha is blurred as a fourth channel, as the original stack blur did,
+ * but the colour channels now stay premultiplied: colour is weighted by
+ * coverage, so transparent pixels no longer pull edges towards black
+ * (the original blurred getPixels' unpremultiplied values). The native
+ * kernel does the same; the alpha-edge golden cases pin it down.
+ * 
+ * Not thread-safe; BlurHelper keeps one per thread.
+ */
+final class PixelBuffer {
+    
+    private int[] mPixels = new int[0];
+    private IntBuffer mBuffer = IntBuffer.wrap(mPixels);
+    private int mWidth = 0;
+    private int mHeight = 0;
+    private boolean mHasAlpha = true;
+    
+    // Kernel scratch, grown as needed
+    private int[] mRed = new int[0];
+    private int[] mGreen = new int[0];
+    private int[] mBlue = new int[0];
+    private int[] mAlpha = new int[0];
+    private int[] mMin = new int[0];
+    private int[][] mStack = new int[0][];
+    
+    /**
+     * Read all pixels of a bitmap (ARGB_8888 or RGB_565) into the buffer
+     */
+    void read(@NonNull Bitmap bitmap) {
+        mWidth = bitmap.getWidth();
+        mHeight = bitmap.getHeight();
+        mHasAlpha = bitmap.getConfig() != Bitmap.Config.RGB_565;
+        int size = mWidth * mHeight;
+        if (mPixels.length < size) {
+            mPixels = new int[size];
+            mBuffer = IntBuffer.wrap(mPixels);
+        }
+        
+        if (mHasAlpha) {
+            mBuffer.clear();
+            mBuffer.limit(size);
+            bitmap.copyPixelsToBuffer(mBuffer);
+        } else {
+            bitmap.getPixels(mPixels, 0, mWidth, 0, 0, mWidth, mHeight);
+        }
+    }
+    
+    /**
+     * Write the buffer back to a mutable bitmap of its current size and the
+     * config it was read from
+     */
+    void write(@NonNull Bitmap bitmap) {
+        if (mHasAlpha) {
+            mBuffer.clear();
+            mBuffer.limit(mWidth * mHeight);
+            bitmap.copyPixelsFromBuffer(mBuffer);
+        } else {
+            bitmap.setPixels(mPixels, 0, mWidth, 0, 0, mWidth, mHeight);
+        }
+    }
+    
+    /**
+     * Scale the buffer down in place to width x height (at most its size)
+     * 
+     * Box filter: each pixel becomes the rounded average of the block of
+     * source pixels it covers, so every source pixel counts. Blocks are
+     * written in order to indices no larger than any block still to be read.
+     */
+    void downsample(int width, int height) {
+        width = Math.min(width, mWidth);
+        height = Math.min(height, mHeight);
+        if (width < 1 || height < 1 || (width == mWidth && height == mHeight)) {
+            return;
+        }
+        
+        int[] pixels = mPixels;
+        int w = mWidth;
+        int h = mHeight;
+        
+        // Source column where each destination column starts (plus the end)
+        ensureScratch(0, width + 1, false);
+        int[] columns = mMin;
+        for (int x = 0; x <= width; x++) {
+            columns[x] = (int) ((long) x * w / width);
+        }
+        
+        int i = 0;
+        for (int y = 0; y < height; y++) {
+            int y0 = (int) ((long) y * h / height);
+            int y1 = (int) ((long) (y + 1) * h / height);
+            for (int x = 0; x < width; x++) {
+                int x0 = columns[x];
+                int x1 = columns[x + 1];
+                int asum = 0;
+                int rsum = 0;
+                int gsum = 0;
+                int bsum = 0;
+                for (int sy = y0; sy < y1; sy++) {
+                    int row = sy * w;
+                    for (int sx = x0; sx < x1; sx++) {
+                        int p = pixels[row + sx];
+                        asum += p >>> 24;
+                        rsum += (p >> 16) & 0xff;
+                        gsum += (p >> 8) & 0xff;
+                        bsum += p & 0xff;
+                    }
+                }
+                int count = (x1 - x0) * (y1 - y0);
+                int half = count >> 1;
+                pixels[i++] = ((asum + half) / count) << 24
+                        | ((rsum + half) / count) << 16
+                        | ((gsum + half) / count) << 8
+                        | ((bsum + half) / count);
+            }
+        }
+        mWidth = width;
+        mHeight = height;
+    }
+    
+    /**
+     * Stack blur the buffer in place
+     * Based on Mario Klingemann's stack blur algorithm
+     * 
+     * RGB_565 pixels skip the alpha channel arithmetic.
+     */
+    void stackBlur(int radius) {
+        if (radius < 1 || mWidth == 0 || mHeight == 0) {
+            return;
+        }
+        
+        int[] pixels = mPixels;
+        int w = mWidth;
+        int h = mHeight;
+        boolean hasAlpha = mHasAlpha;
+        
+        int wm = w - 1;
+        int hm = h - 1;
+        int wh = w * h;
+        int div = radius + radius + 1;
+        
+        ensureScratch(wh, Math.max(w, h), hasAlpha);
+        int[] r = mRed;
+        int[] g = mGreen;
+        int[] b = mBlue;
+        int[] a = mAlpha;
+        int rsum, gsum, bsum, asum, x, y, i, p, yp, yi, yw;
+        int[] vmin = mMin;
+        
+        long divMul = reciprocal(radius);
+        
+        yw = yi = 0;
+        
+        int[][] stack = stack(div);
+        int stackpointer;
+        int stackstart;
+        int[] sir;
+        int rbs;
+        int r1 = radius + 1;
+        int routsum, goutsum, boutsum, aoutsum;
+        int rinsum, ginsum, binsum, ainsum;
+        
+        for (y = 0; y < h; y++) {
+            rinsum = ginsum = binsum = ainsum = routsum = goutsum = boutsum = aoutsum = rsum = gsum = bsum = asum = 0;
+            for (i = -radius; i <= radius; i++) {
+                p = pixels[yi + Math.min(wm, Math.max(i, 0))];
+                sir = stack[i + radius];
+                sir[0] = (p & 0x00ff0000) >> 16;
+                sir[1] = (p & 0x0000ff00) >> 8;
+                sir[2] = (p & 0x000000ff);
+                if (hasAlpha) sir[3] = (p & 0xff000000) >>> 24;
+                rbs = r1 - Math.abs(i);
+                rsum += sir[0] * rbs;
+                gsum += sir[1] * rbs;
+                bsum += sir[2] * rbs;
+                if (hasAlpha) asum += sir[3] * rbs;
+                if (i > 0) {
+                    rinsum += sir[0];
+                    ginsum += sir[1];
+                    binsum += sir[2];
+                    if (hasAlpha) ainsum += sir[3];
+                } else {
+                    routsum += sir[0];
+                    goutsum += sir[1];
+                    boutsum += sir[2];
+                    if (hasAlpha) aoutsum += sir[3];
+                }
+            }
+            stackpointer = radius;
+            
+            for (x = 0; x < w; x++) {
+                r[yi] = divide(rsum, divMul);
+                g[yi] = divide(gsum, divMul);
+                b[yi] = divide(bsum, divMul);
+                if (hasAlpha) a[yi] = divide(asum, divMul);
+                
+                rsum -= routsum;
+                gsum -= goutsum;
+                bsum -= boutsum;
+                if (hasAlpha) asum -= aoutsum;
+                
+                stackstart = stackpointer - radius + div;
+                sir = stack[stackstart % div];
+                
+                routsum -= sir[0];
+                goutsum -= sir[1];
+                boutsum -= sir[2];
+                if (hasAlpha) aoutsum -= sir[3];
+                
+                if (y == 0) {
+                    vmin[x] = Math.min(x + radius + 1, wm);
+                }
+                p = pixels[yw + vmin[x]];
+                
+                sir[0] = (p & 0x00ff0000) >> 16;
+                sir[1] = (p & 0x0000ff00) >> 8;
+                sir[2] = (p & 0x000000ff);
+                if (hasAlpha) sir[3] = (p & 0xff000000) >>> 24;
+                
+                rinsum += sir[0];
+                ginsum += sir[1];
+                binsum += sir[2];
+                if (hasAlpha) ainsum += sir[3];
+                
+                rsum += rinsum;
+                gsum += ginsum;
+                bsum += binsum;
+                if (hasAlpha) asum += ainsum;
+                
+                stackpointer = (stackpointer + 1) % div;
+                sir = stack[(stackpointer) % div];
+                
+                routsum += sir[0];
+                goutsum += sir[1];
+                boutsum += sir[2];
+                if (hasAlpha) aoutsum += sir[3];
+                
+                rinsum -= sir[0];
+                ginsum -= sir[1];
+                binsum -= sir[2];
+                if (hasAlpha) ainsum -= sir[3];
+                
+                yi++;
+            }
+            yw += w;
+        }
+        
+        for (x = 0; x < w; x++) {
+            rinsum = ginsum = binsum = ainsum = routsum = goutsum = boutsum = aoutsum = rsum = gsum = bsum = asum = 0;
+            yp = -radius * w;
+            for (i = -radius; i <= radius; i++) {
+                yi = Math.max(0, yp) + x;
+                
+                sir = stack[i + radius];
+                
+                sir[0] = r[yi];
+                sir[1] = g[yi];
+                sir[2] = b[yi];
+                if (hasAlpha) sir[3] = a[yi];
+                
+                rbs = r1 - Math.abs(i);
+                
+                rsum += r[yi] * rbs;
+                gsum += g[yi] * rbs;
+                bsum += b[yi] * rbs;
+                if (hasAlpha) asum += a[yi] * rbs;
+                
+                if (i > 0) {
+                    rinsum += sir[0];
+                    ginsum += sir[1];
+                    binsum += sir[2];
+                    if (hasAlpha) ainsum += sir[3];
+                } else {
+                    routsum += sir[0];
+                    goutsum += sir[1];
+                    boutsum += sir[2];
+                    if (hasAlpha) aoutsum += sir[3];
+                }
+                
+                if (i < hm) {
+                    yp += w;
+                }
+            }
+            yi = x;
+            stackpointer = radius;
+            for (y = 0; y < h; y++) {
+                pixels[yi] = (hasAlpha ? divide(asum, divMul) << 24 : 0xff000000)
+                        | (divide(rsum, divMul) << 16)
+                        | (divide(gsum, divMul) << 8)
+                        | divide(bsum, divMul);
+                
+                rsum -= routsum;
+                gsum -= goutsum;
+                bsum -= boutsum;
+                if (hasAlpha) asum -= aoutsum;
+                
+                stackstart = stackpointer - radius + div;
+                sir = stack[stackstart % div];
+                
+                routsum -= sir[0];
+                goutsum -= sir[1];
+                boutsum -= sir[2];
+                if (hasAlpha) aoutsum -= sir[3];
+                
+                if (x == 0) {
+                    vmin[y] = Math.min(y + r1, hm) * w;
+                }
+                p = x + vmin[y];
+                
+                sir[0] = r[p];
+                sir[1] = g[p];
+                sir[2] = b[p];
+                if (hasAlpha) sir[3] = a[p];
+                
+                rinsum += sir[0];
+                ginsum += sir[1];
+                binsum += sir[2];
+                if (hasAlpha) ainsum += sir[3];
+                
+                rsum += rinsum;
+                gsum += ginsum;
+                bsum += binsum;
+                if (hasAlpha) asum += ainsum;
+                
+                stackpointer = (stackpointer + 1) % div;
+                sir = stack[stackpointer];
+                
+                routsum += sir[0];
+                goutsum += sir[1];
+                boutsum += sir[2];
+                if (hasAlpha) aoutsum += sir[3];
+                
+                rinsum -= sir[0];
+                ginsum -= sir[1];
+                binsum -= sir[2];
+                if (hasAlpha) ainsum -= sir[3];
+                
+                yi += w;
+            }
+        }
+    }
+    
+    private void ensureScratch(int size, int span, boolean hasAlpha) {
+        if (mRed.length < size) {
+            mRed = new int[size];
+            mGreen = new int[size];
+            mBlue = new int[size];
+        }
+        if (hasAlpha && mAlpha.length < size) {
+            mAlpha = new int[size];
+        }
+        if (mMin.length < span) {
+            mMin = new int[span];
+        }
+    }
+    
+    /**
+     * Fixed-point reciprocal of the kernel weight, (radius + 1)^2
+     * 
+     * Replaces a per-radius division table (256 * weight ints, ~180 KB at
+     * radius 25) with a multiply and shift, like the native kernel. The
+     * quotient is exact for every channel sum up to radius 1023.
+     */
+    private static long reciprocal(int radius) {
+        long divsum = (long) (radius + 1) * (radius + 1);
+        return (1L << 48) / divsum + 1;
+    }
+    
+    private static int divide(int sum, long reciprocal) {
+        return (int) ((sum * reciprocal) >>> 48);
+    }
+    
+    private int[][] stack(int size) {
+        if (mStack.length < size) {
+            mStack = new int[size][4];
+        }
+        return mStack;
+    }
+}
@@ -0,0 +1,31 @@
+package com.nimglass;
+
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.uimanager.SimpleViewManager;
+import com.facebook.react.uimanager.ViewManagerDelegate;
+import com.facebook.react.viewmanagers.NimGlassBlurViewManagerDelegate;
+import com.facebook.react.viewmanagers.NimGlassBlurViewManagerInterface;
+
+/**
+ * NimGlassBlurView manager spec (New Architecture)
+ * 
+ * Fabric applies props and commands through the codegen-generated delegate.
+ */
+public abstract class NimGlassBlurViewManagerSpec<T extends View> extends SimpleViewManager<T>
+        implements NimGlassBlurViewManagerInterface<T> {
+
+    private final ViewManagerDelegate<T> mDelegate;
+
+    public NimGlassBlurViewManagerSpec() {
+        mDelegate = new NimGlassBlurViewManagerDelegate(this);
+    }
+
+    @Nullable
+    @Override
+    protected ViewManagerDelegate<T> getDelegate() {
+        return mDelegate;
+    }
+}
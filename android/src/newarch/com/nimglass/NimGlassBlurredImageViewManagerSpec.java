@@ -0,0 +1,31 @@
+package com.nimglass;
+
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.uimanager.SimpleViewManager;
+import com.facebook.react.uimanager.ViewManagerDelegate;
+import com.facebook.react.viewmanagers.NimGlassBlurredImageViewManagerDelegate;
+import com.facebook.react.viewmanagers.NimGlassBlurredImageViewManagerInterface;
+
+/**
+ * NimGlassBlurredImageView manager spec (New Architecture)
+ * 
+ * Fabric applies props through the codegen-generated delegate.
+ */
+public abstract class NimGlassBlurredImageViewManagerSpec<T extends View> extends SimpleViewManager<T>
+        implements NimGlassBlurredImageViewManagerInterface<T> {
+
+    private final ViewManagerDelegate<T> mDelegate;
+
+    public NimGlassBlurredImageViewManagerSpec() {
+        mDelegate = new NimGlassBlurredImageViewManagerDelegate(this);
+    }
+
+    @Nullable
+    @Override
+    protected ViewManagerDelegate<T> getDelegate() {
+        return mDelegate;
+    }
+}
@@ -0,0 +1,14 @@
+package com.nimglass;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+
+/**
+ * NimGlass module spec (New Architecture)
+ * 
+ * Backed by the codegen-generated TurboModule spec.
+ */
+abstract class NimGlassSpec extends NativeNimGlassSpec {
+    NimGlassSpec(ReactApplicationContext context) {
+        super(context);
+    }
+}
@@ -0,0 +1,41 @@
+package com.nimglass;
+
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.uimanager.SimpleViewManager;
+
+/**
+ * NimGlassBlurView manager spec (legacy bridge)
+ * 
+ * Mirrors the codegen component spec in src/NimGlassBlurViewNativeComponent.ts.
+ */
+public abstract class NimGlassBlurViewManagerSpec<T extends View> extends SimpleViewManager<T> {
+
+    public abstract void setBlurRadius(T view, float value);
+
+    public abstract void setDownsampleFactor(T view, int value);
+
+    public abstract void setMaxBlurPixels(T view, int value);
+
+    public abstract void setProgressiveEndRadius(T view, float value);
+
+    public abstract void setProgressiveDirection(T view, @Nullable String value);
+
+    public abstract void setOpaqueBackdrop(T view, boolean value);
+
+    public abstract void setDebugOverlay(T view, boolean value);
+
+    public abstract void setTintColor(T view, @Nullable String value);
+
+    public abstract void setTintOpacity(T view, float value);
+
+    public abstract void setCornerRadius(T view, float value);
+
+    public abstract void setShowInsetShadow(T view, boolean value);
+
+    public abstract void setInsetShadowBlur(T view, float value);
+
+    public abstract void refresh(T view);
+}
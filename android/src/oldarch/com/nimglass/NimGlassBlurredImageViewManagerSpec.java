@@ -0,0 +1,23 @@
+package com.nimglass;
+
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.uimanager.SimpleViewManager;
+
+/**
+ * NimGlassBlurredImageView manager spec (legacy bridge)
+ * 
+ * Mirrors the codegen component spec in src/NimGlassBlurredImageViewNativeComponent.ts.
+ */
+public abstract class NimGlassBlurredImageViewManagerSpec<T extends View> extends SimpleViewManager<T> {
+
+    public abstract void setSourceUri(T view, @Nullable String value);
+
+    public abstract void setBlurRadius(T view, float value);
+
+    public abstract void setDownsampleFactor(T view, int value);
+
+    public abstract void setResizeMode(T view, @Nullable String value);
+}
@@ -0,0 +1,22 @@
+package com.nimglass;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+
+/**
+ * NimGlass module spec (legacy bridge)
+ * 
+ * Mirrors the codegen TurboModule spec in src/NativeNimGlass.ts.
+ */
+abstract class NimGlassSpec extends ReactContextBaseJavaModule {
+    NimGlassSpec(ReactApplicationContext context) {
+        super(context);
+    }
+
+    public abstract boolean supportsHardwareBlur();
+
+    public abstract double getApiLevel();
+
+    public abstract void prewarm(Promise promise);
+}
@@ -0,0 +1,150 @@
+/*
+ * Host test: nimglass_stack_blur against the Java reference kernel
+ *
+ * Each line of the golden file describes one case - seed, width, height,
+ * radius, passes, alpha - and the FNV-1a hash of PixelBuffer.stackBlur's
+ * output for it. The input pixels are regenerated here from the seed with
+ * the same generator as StackBlurGoldenTest, blurred in rows with padded
+ * strides, and hashed. Padding bytes must come out untouched.
+ *
+ * Only the path the host compiles is exercised: scalar or SSE4.1 on x86_64,
+ * NEON on arm64 (natively or under qemu-aarch64, see CMakeLists.txt).
+ *
+ * Usage: stack_blur_test <stack_blur_golden.txt>
+ */
+#include "stack_blur.h"
+
+#include <inttypes.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+
+/* Extra bytes at the end of each row, filled with PADDING_BYTE */
+#define ROW_PADDING 12
+#define PADDING_BYTE 0xa5
+
+static uint32_t next_random(uint32_t *state) {
+    uint32_t x = *state;
+    x ^= x << 13;
+    x ^= x >> 17;
+    x ^= x << 5;
+    *state = x;
+    return x;
+}
+
+/* Input alpha: random, opaque, or an opaque left half over a transparent right half */
+#define ALPHA_RANDOM 0
+#define ALPHA_OPAQUE 1
+#define ALPHA_EDGE 2
+
+/* Premultiplied RGBA pixel: color channels never exceed alpha */
+static void random_pixel(uint32_t *state, int alpha_mode, uint8_t *out) {
+    uint32_t alpha = alpha_mode == ALPHA_RANDOM ? next_random(state) & 0xff : 255;
+    for (int i = 0; i < 3; i++) {
+        out[i] = (uint8_t) (next_random(state) % (alpha + 1));
+    }
+    out[3] = (uint8_t) alpha;
+}
+
+static uint64_t fnv1a(uint64_t hash, const uint8_t *bytes, size_t length) {
+    for (size_t i = 0; i < length; i++) {
+        hash ^= bytes[i];
+        hash *= UINT64_C(0x100000001b3);
+    }
+    return hash;
+}
+
+/* @return 0 if the case matches the golden hash */
+static int run_case(int line, uint32_t seed, int width, int height,
+                    int radius, int passes, int alpha_mode, uint64_t expected) {
+    int stride = width * 4 + ROW_PADDING;
+    uint8_t *pixels = malloc((size_t) stride * height);
+    if (pixels == NULL) {
+        fprintf(stderr, "line %d: out of memory\n", line);
+        return 1;
+    }
+    memset(pixels, PADDING_BYTE, (size_t) stride * height);
+
+    uint32_t state = seed;
+    for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+            uint8_t *pixel = pixels + (size_t) y * stride + x * 4;
+            random_pixel(&state, alpha_mode, pixel);
+            if (alpha_mode == ALPHA_EDGE && x >= width / 2) {
+                memset(pixel, 0, 4);
+            }
+        }
+    }
+
+    for (int i = 0; i < passes; i++) {
+        if (nimglass_stack_blur(pixels, NIMGLASS_FORMAT_RGBA_8888, width, height, stride, radius) != 0) {
+            fprintf(stderr, "line %d: blur failed\n", line);
+            free(pixels);
+            return 1;
+        }
+    }
+
+    int failed = 0;
+    uint64_t hash = UINT64_C(0xcbf29ce484222325);
+    for (int y = 0; y < height; y++) {
+        const uint8_t *row = pixels + (size_t) y * stride;
+        hash = fnv1a(hash, row, (size_t) width * 4);
+        for (int i = width * 4; i < stride; i++) {
+            if (row[i] != PADDING_BYTE) {
+                fprintf(stderr, "line %d: row %d padding overwritten\n", line, y);
+                failed = 1;
+                break;
+            }
+        }
+    }
+    if (hash != expected) {
+        fprintf(stderr, "line %d: %dx%d radius %d passes %d alpha %d: hash %016" PRIx64 ", expected %016" PRIx64 "\n",
+                line, width, height, radius, passes, alpha_mode, hash, expected);
+        failed = 1;
+    }
+
+    free(pixels);
+    return failed;
+}
+
+int main(int argc, char **argv) {
+    if (argc != 2) {
+        fprintf(stderr, "usage: %s <stack_blur_golden.txt>\n", argv[0]);
+        return 2;
+    }
+    FILE *file = fopen(argv[1], "r");
+    if (file == NULL) {
+        perror(argv[1]);
+        return 2;
+    }
+
+    char text[256];
+    int line = 0;
+    int cases = 0;
+    int failures = 0;
+    while (fgets(text, sizeof(text), file) != NULL) {
+        line++;
+        if (text[0] == '#' || text[0] == '\n') {
+            continue;
+        }
+        uint32_t seed;
+        int width, height, radius, passes, alpha_mode;
+        uint64_t expected;
+        if (sscanf(text, "%" SCNu32 " %d %d %d %d %d %" SCNx64,
+                   &seed, &width, &height, &radius, &passes, &alpha_mode, &expected) != 7) {
+            fprintf(stderr, "line %d: malformed\n", line);
+            fclose(file);
+            return 2;
+        }
+        failures += run_case(line, seed, width, height, radius, passes, alpha_mode, expected);
+        cases++;
+    }
+    fclose(file);
+
+    if (cases == 0) {
+        fprintf(stderr, "%s: no cases\n", argv[1]);
+        return 2;
+    }
+    printf("%d/%d cases match the Java reference\n", cases - failures, cases);
+    return failures == 0 ? 0 : 1;
+}
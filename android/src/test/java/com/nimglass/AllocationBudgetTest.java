@@ -0,0 +1,202 @@
+package com.nimglass;
+
+import static org.junit.Assert.assertTrue;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.ScrollView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+
+/**
+ * AllocationBudgetTest - Java heap allocated by the glass render path
+ * 
+ * Drives a NimGlassBlurView over a scrolling backdrop through steady-state
+ * frames, scroll refreshes and prop changes, and checks the bytes the main
+ * thread allocates per frame (ThreadMXBean#getThreadAllocatedBytes) against
+ * separate budgets for the draw path (onDraw) and the blur path (scheduled
+ * capture and blur). Each scenario is warmed up first, so pools and caches
+ * are filled and only steady-state allocations are counted.
+ * 
+ * The budgets leave room for what Robolectric's native graphics layer
+ * allocates per canvas call; a per-frame buffer, bitmap or division table
+ * goes well past them.
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = 33)
+public class AllocationBudgetTest {
+    
+    // Bytes per frame
+    private static final long DRAW_BUDGET_BYTES = 4 * 1024;
+    private static final long BLUR_BUDGET_BYTES = 8 * 1024;
+    
+    private static final int WARMUP_FRAMES = 10;
+    private static final int FRAMES = 100;
+    
+    private static final int WIDTH = 360;
+    private static final int HEIGHT = 640;
+    private static final int GLASS_HEIGHT = 120;
+    
+    private ActivityController<Activity> mController;
+    private ScrollView mScrollView;
+    // ViewTreeObserver#dispatchOnScrollChanged (hidden), called by ViewRootImpl after a scroll
+    private Method mDispatchOnScrollChanged;
+    private NimGlassBlurView mGlass;
+    private Bitmap mFrame;
+    private Canvas mCanvas;
+    
+    @Before
+    public void setUp() throws Exception {
+        mController = Robolectric.buildActivity(Activity.class).setup();
+        Activity activity = mController.get();
+    
+        // Striped content under a glass header
+        LinearLayout content = new LinearLayout(activity);
+        content.setOrientation(LinearLayout.VERTICAL);
+        for (int i = 0; i < 40; i++) {
+            View row = new View(activity);
+            row.setBackgroundColor(i % 2 == 0 ? Color.rgb(230, 80, 60) : Color.rgb(40, 120, 220));
+            content.addView(row, new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 48));
+        }
+        mScrollView = new ScrollView(activity);
+        mScrollView.addView(content);
+    
+        mGlass = new NimGlassBlurView(activity);
+        mGlass.setShowInsetShadow(true);
+    
+        FrameLayout root = new FrameLayout(activity);
+        root.setBackgroundColor(Color.WHITE);
+        root.addView(mScrollView, new FrameLayout.LayoutParams(WIDTH, HEIGHT));
+        root.addView(mGlass, new FrameLayout.LayoutParams(WIDTH, GLASS_HEIGHT));
+        activity.setContentView(root);
+    
+        root.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY)
+        );
+        root.layout(0, 0, WIDTH, HEIGHT);
+    
+        mDispatchOnScrollChanged = ViewTreeObserver.class.getDeclaredMethod("dispatchOnScrollChanged");
+        mDispatchOnScrollChanged.setAccessible(true);
+        
+        mFrame = Bitmap.createBitmap(WIDTH, GLASS_HEIGHT, Bitmap.Config.ARGB_8888);
+        mCanvas = new Canvas(mFrame);
+    
+        // First capture and blur
+        refresh();
+        draw();
+    }
+    
+    @After
+    public void tearDown() {
+        mController.pause().stop().destroy();
+    }
+    
+    @Test
+    public void steadyStateDrawStaysWithinBudget() {
+        long bytes = perFrame(new Runnable() {
+            @Override
+            public void run() {
+                draw();
+            }
+        });
+        assertWithinBudget("draw", bytes, DRAW_BUDGET_BYTES);
+    }
+    
+    @Test
+    public void scrollRefreshStaysWithinBudget() {
+        final int[] step = {0};
+        long bytes = perFrame(new Runnable() {
+            @Override
+            public void run() {
+                // Back and forth, so the backdrop keeps changing
+                mScrollView.scrollTo(0, (step[0]++ % 20) * 8);
+                dispatchScroll();
+                refresh();
+            }
+        });
+        assertWithinBudget("scroll refresh", bytes, BLUR_BUDGET_BYTES);
+    }
+    
+    @Test
+    public void propChangesStayWithinBudget() {
+        final int[] step = {0};
+        long bytes = perFrame(new Runnable() {
+            @Override
+            public void run() {
+                int i = step[0]++;
+                mGlass.setBlurRadius(i % 2 == 0 ? 20f : 30f);
+                mGlass.setTintOpacity(i % 2 == 0 ? 0.2f : 0.3f);
+                mGlass.setCornerRadius(i % 2 == 0 ? 12f : 20f);
+                mGlass.setOpaqueBackdrop(i % 4 < 2);
+                mGlass.setDownsampleFactor(i % 3 == 0 ? 2 : 4);
+                refresh();
+            }
+        });
+        assertWithinBudget("prop change", bytes, BLUR_BUDGET_BYTES);
+    }
+    
+    /**
+     * Average bytes allocated on this thread per run of a frame, after warming it up
+     */
+    private static long perFrame(Runnable frame) {
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            frame.run();
+        }
+        long start = allocatedBytes();
+        for (int i = 0; i < FRAMES; i++) {
+            frame.run();
+        }
+        return (allocatedBytes() - start) / FRAMES;
+    }
+    
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    
+    private static void assertWithinBudget(String path, long bytes, long budget) {
+        assertTrue(path + " allocates " + bytes + " bytes per frame, budget " + budget, bytes <= budget);
+    }
+    
+    private void dispatchScroll() {
+        try {
+            mDispatchOnScrollChanged.invoke(mScrollView.getViewTreeObserver());
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+    
+    /**
+     * Run the glass view's pre-draw hook and the scheduler's frame, as a traversal would
+     */
+    private void refresh() {
+        mGlass.getViewTreeObserver().dispatchOnPreDraw();
+        BlurScheduler.getInstance().doFrame(System.nanoTime());
+    }
+    
+    private void draw() {
+        mFrame.eraseColor(Color.TRANSPARENT);
+        mGlass.draw(mCanvas);
+    }
+}
@@ -0,0 +1,222 @@
+package com.nimglass;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * BlurDiskCacheTest - Entry format, validation and trimming of the blur disk cache
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = 33)
+public class BlurDiskCacheTest {
+    
+    private static final int WIDTH = 7;
+    private static final int HEIGHT = 5;
+    
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+    
+    private File mDirectory;
+    private BlurDiskCache mCache;
+    
+    @Before
+    public void setUp() {
+        mDirectory = new File(mFolder.getRoot(), "cache");
+        mCache = new BlurDiskCache(mDirectory, BlurDiskCache.MAX_CACHE_BYTES);
+    }
+    
+    @Test
+    public void roundTripsArgb8888() {
+        Bitmap bitmap = pattern(Bitmap.Config.ARGB_8888, 0);
+        mCache.put("argb", bitmap);
+    
+        Bitmap cached = mCache.get("argb");
+        assertNotNull(cached);
+        assertEquals(Bitmap.Config.ARGB_8888, cached.getConfig());
+        assertArrayEquals(pixels(bitmap), pixels(cached));
+    }
+    
+    @Test
+    public void roundTripsRgb565() {
+        Bitmap bitmap = pattern(Bitmap.Config.RGB_565, 0);
+        mCache.put("rgb565", bitmap);
+    
+        Bitmap cached = mCache.get("rgb565");
+        assertNotNull(cached);
+        assertEquals(Bitmap.Config.RGB_565, cached.getConfig());
+        assertArrayEquals(pixels(bitmap), pixels(cached));
+        assertEquals(BlurDiskCache.HEADER_BYTES + WIDTH * HEIGHT * 2, entry("rgb565").length());
+    }
+    
+    @Test
+    public void leavesNoTempFileBehind() {
+        mCache.put("entry", pattern(Bitmap.Config.ARGB_8888, 0));
+    
+        String[] names = mDirectory.list();
+        assertNotNull(names);
+        assertArrayEquals(new String[] {"entry"}, names);
+    }
+    
+    @Test
+    public void rejectsTruncatedEntry() throws IOException {
+        mCache.put("entry", pattern(Bitmap.Config.ARGB_8888, 0));
+        try (RandomAccessFile file = new RandomAccessFile(entry("entry"), "rw")) {
+            file.setLength(file.length() - 1);
+        }
+    
+        assertNull(mCache.get("entry"));
+        assertFalse(entry("entry").exists());
+    }
+    
+    @Test
+    public void rejectsFileShorterThanHeader() throws IOException {
+        writeEntry("entry", new byte[BlurDiskCache.HEADER_BYTES - 1]);
+    
+        assertNull(mCache.get("entry"));
+        assertFalse(entry("entry").exists());
+    }
+    
+    @Test
+    public void rejectsWrongMagic() throws IOException {
+        mCache.put("entry", pattern(Bitmap.Config.ARGB_8888, 0));
+        try (RandomAccessFile file = new RandomAccessFile(entry("entry"), "rw")) {
+            file.writeInt(0x12345678);
+        }
+    
+        assertNull(mCache.get("entry"));
+        assertFalse(entry("entry").exists());
+    }
+    
+    @Test
+    public void rejectsOversizeDimensionsWithoutAllocating() throws IOException {
+        // Huge header over a small body: must not try to allocate the bitmap
+        writeEntry("huge", header(100000, 100000, 1, System.currentTimeMillis()));
+        // Length matches width * height * 2, but wider than any real entry
+        int width = BlurDiskCache.MAX_DIMENSION + 1;
+        ByteBuffer wide = ByteBuffer.allocate(BlurDiskCache.HEADER_BYTES + width * 2);
+        wide.put(header(width, 1, 2, System.currentTimeMillis()));
+        writeEntry("wide", wide.array());
+    
+        assertNull(mCache.get("huge"));
+        assertNull(mCache.get("wide"));
+        assertFalse(entry("huge").exists());
+        assertFalse(entry("wide").exists());
+    }
+    
+    @Test
+    public void expiresOldEntries() throws IOException {
+        mCache.put("entry", pattern(Bitmap.Config.ARGB_8888, 0));
+        try (RandomAccessFile file = new RandomAccessFile(entry("entry"), "rw")) {
+            file.seek(16);
+            file.writeLong(System.currentTimeMillis() - BlurDiskCache.MAX_AGE_MS - 1000);
+        }
+    
+        assertNull(mCache.get("entry"));
+        assertFalse(entry("entry").exists());
+    }
+    
+    @Test
+    public void trimsLeastRecentlyUsedPastBudget() {
+        long entryBytes = BlurDiskCache.HEADER_BYTES + WIDTH * HEIGHT * 4;
+        BlurDiskCache cache = new BlurDiskCache(mDirectory, entryBytes * 3);
+        cache.put("a", pattern(Bitmap.Config.ARGB_8888, 1));
+        cache.put("b", pattern(Bitmap.Config.ARGB_8888, 2));
+        cache.put("c", pattern(Bitmap.Config.ARGB_8888, 3));
+        long now = System.currentTimeMillis();
+        assertTrue(entry("a").setLastModified(now - 30000));
+        assertTrue(entry("b").setLastModified(now - 10000));
+        assertTrue(entry("c").setLastModified(now - 20000));
+    
+        cache.put("d", pattern(Bitmap.Config.ARGB_8888, 4));
+    
+        assertFalse(entry("a").exists());
+        assertTrue(entry("b").exists());
+        assertTrue(entry("c").exists());
+        assertTrue(entry("d").exists());
+    }
+    
+    @Test
+    public void keyChangesWithLocalFileVersion() throws IOException {
+        File source = mFolder.newFile("source.png");
+        writeFile(source, new byte[10]);
+        String uri = "file://" + source.getAbsolutePath();
+        String before = BlurDiskCache.key(
+                uri, BlurDiskCache.sourceVersion(RuntimeEnvironment.getApplication(), uri), 25f, 4);
+    
+        writeFile(source, new byte[20]);
+        String after = BlurDiskCache.key(
+                uri, BlurDiskCache.sourceVersion(RuntimeEnvironment.getApplication(), uri), 25f, 4);
+    
+        assertNotEquals(before, after);
+        assertEquals("", BlurDiskCache.sourceVersion(RuntimeEnvironment.getApplication(), "https://example.com/a.png"));
+    }
+    
+    private File entry(String key) {
+        return new File(mDirectory, key);
+    }
+    
+    private void writeEntry(String key, byte[] bytes) throws IOException {
+        assertTrue(mDirectory.isDirectory() || mDirectory.mkdirs());
+        writeFile(entry(key), bytes);
+    }
+    
+    private static void writeFile(File file, byte[] bytes) throws IOException {
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(bytes);
+        }
+    }
+    
+    private static byte[] header(int width, int height, int configId, long written) {
+        ByteBuffer header = ByteBuffer.allocate(BlurDiskCache.HEADER_BYTES);
+        header.putInt(BlurDiskCache.MAGIC);
+        header.putInt(width);
+        header.putInt(height);
+        header.putInt(configId);
+        header.putLong(written);
+        return header.array();
+    }
+    
+    /**
+     * Distinct opaque pixels (translucent ones would be rounded by premultiplication)
+     */
+    private static Bitmap pattern(Bitmap.Config config, int seed) {
+        Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, config);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                bitmap.setPixel(x, y, Color.rgb(x * 36 + seed, y * 50, (x + y) * 20));
+            }
+        }
+        return bitmap;
+    }
+    
+    private static int[] pixels(Bitmap bitmap) {
+        int[] pixels = new int[bitmap.getWidth() * bitmap.getHeight()];
+        bitmap.getPixels(pixels, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
+        return pixels;
+    }
+}
@@ -0,0 +1,121 @@
+package com.nimglass;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BlurSchedulerTest - Order in which competing glass views get the frame budget
+ * 
+ * Each test view spends the whole frame budget when it runs, so exactly one
+ * view runs per frame and the run order is the scheduler's priority order.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class BlurSchedulerTest {
+    
+    private static final long LARGE_AREA = 360L * 640;
+    private static final long SMALL_AREA = 48L * 48;
+    
+    private final List<String> mRuns = new ArrayList<>();
+    private final List<RecordingView> mViews = new ArrayList<>();
+    
+    @After
+    public void tearDown() {
+        for (RecordingView view : mViews) {
+            BlurScheduler.getInstance().cancel(view);
+        }
+    }
+    
+    @Test
+    public void largerViewRunsFirst() {
+        RecordingView small = view("small");
+        RecordingView large = view("large");
+        BlurScheduler.getInstance().request(small, SMALL_AREA);
+        BlurScheduler.getInstance().request(large, LARGE_AREA);
+    
+        frame();
+        frame();
+    
+        assertEquals(2, mRuns.size());
+        assertEquals("large", mRuns.get(0));
+        assertEquals("small", mRuns.get(1));
+    }
+    
+    @Test
+    public void waitingRaisesPriority() {
+        // A mid-sized view that has waited goes ahead of a larger one that just asked
+        RecordingView large = view("large");
+        RecordingView medium = view("medium");
+        BlurScheduler.getInstance().request(large, LARGE_AREA);
+        BlurScheduler.getInstance().request(medium, LARGE_AREA * 2 / 3);
+    
+        frame();
+        BlurScheduler.getInstance().request(large, LARGE_AREA);
+        frame();
+    
+        assertEquals("large", mRuns.get(0));
+        assertEquals("medium", mRuns.get(1));
+    }
+    
+    @Test
+    public void smallViewIsNotStarved() {
+        // The large view asks again every frame (e.g. while scrolling)
+        RecordingView small = view("small");
+        RecordingView large = view("large");
+        BlurScheduler.getInstance().request(small, SMALL_AREA);
+    
+        for (int i = 0; i <= BlurScheduler.MAX_WAIT_FRAMES; i++) {
+            BlurScheduler.getInstance().request(large, LARGE_AREA);
+            frame();
+        }
+    
+        assertTrue(mRuns.toString(), mRuns.contains("small"));
+        assertEquals("large", mRuns.get(0));
+    }
+    
+    private RecordingView view(String name) {
+        RecordingView view = new RecordingView(RuntimeEnvironment.getApplication(), name);
+        mViews.add(view);
+        return view;
+    }
+    
+    private static void frame() {
+        BlurScheduler.getInstance().doFrame(System.nanoTime());
+    }
+    
+    /**
+     * Records its runs and spends the frame budget on each
+     */
+    private class RecordingView extends NimGlassBlurView {
+    
+        private final String mName;
+    
+        RecordingView(Context context, String name) {
+            super(context);
+            mName = name;
+        }
+    
+        @Override
+        void runScheduledBlur() {
+            mRuns.add(mName);
+            // Real time: the scheduler measures its budget with System.nanoTime
+            try {
+                Thread.sleep(7);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.nimglass;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.nio.IntBuffer;
+
+/**
+ * PixelBufferTest - In-buffer downsampling and alpha handling of the Java kernel
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = 33)
+public class PixelBufferTest {
+    
+    @Test
+    public void downsampleAveragesEveryBlock() {
+        // 5x3 to 2x1: columns 0-1 and 2-4, all three rows
+        int[] pixels = new int[15];
+        for (int i = 0; i < pixels.length; i++) {
+            int x = i % 5;
+            pixels[i] = pixel(255, x < 2 ? 10 * x : 100, x < 2 ? 0 : 30 * (x - 2), i / 5);
+        }
+    
+        int[] result = downsample(pixels, 5, 3, 2, 1);
+    
+        assertEquals(2, result.length);
+        // (0 + 10) / 2 rounds to 5; rows 0, 1, 2 average to 1
+        assertEquals(pixel(255, 5, 0, 1), result[0]);
+        assertEquals(pixel(255, 100, 30, 1), result[1]);
+    }
+    
+    @Test
+    public void downsampleKeepsPremultipliedColourWithinAlpha() {
+        int[] pixels = StackBlurGoldenTest.randomPixels(0x1234567, 37, 29, StackBlurGoldenTest.ALPHA_RANDOM);
+    
+        int[] result = downsample(pixels, 37, 29, 9, 7);
+    
+        assertEquals(9 * 7, result.length);
+        for (int p : result) {
+            assertPremultiplied(p);
+        }
+    }
+    
+    /**
+     * Alpha is blurred with the colour: coverage spreads across a hard
+     * alpha edge, and colour never exceeds it (no dark or bright fringes)
+     */
+    @Test
+    public void alphaEdgeBlursCoverageWithColour() {
+        int width = 40;
+        int height = 8;
+        int[] pixels = StackBlurGoldenTest.randomPixels(0x2545f49, width, height, StackBlurGoldenTest.ALPHA_EDGE);
+    
+        int[] result = blur(pixels, width, height, 4);
+    
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            // Far from the edge: fully covered and fully transparent
+            assertEquals(255, alpha(result[row]));
+            assertEquals(0, result[row + width - 1]);
+            // Across the edge: coverage falls off monotonically
+            for (int x = 1; x < width; x++) {
+                assertTrue(alpha(result[row + x]) <= alpha(result[row + x - 1]));
+            }
+            int edge = alpha(result[row + width / 2]);
+            assertTrue("alpha at the edge " + edge, edge > 0 && edge < 255);
+            for (int x = 0; x < width; x++) {
+                assertPremultiplied(result[row + x]);
+            }
+        }
+    }
+    
+    private static int[] downsample(int[] pixels, int width, int height, int toWidth, int toHeight) {
+        PixelBuffer buffer = read(pixels, width, height);
+        buffer.downsample(toWidth, toHeight);
+        return write(buffer, toWidth, toHeight);
+    }
+    
+    private static int[] blur(int[] pixels, int width, int height, int radius) {
+        PixelBuffer buffer = read(pixels, width, height);
+        buffer.stackBlur(radius);
+        return write(buffer, width, height);
+    }
+    
+    private static PixelBuffer read(int[] pixels, int width, int height) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.copyPixelsFromBuffer(IntBuffer.wrap(pixels));
+        PixelBuffer buffer = new PixelBuffer();
+        buffer.read(bitmap);
+        bitmap.recycle();
+        return buffer;
+    }
+    
+    private static int[] write(PixelBuffer buffer, int width, int height) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        buffer.write(bitmap);
+        int[] pixels = new int[width * height];
+        bitmap.copyPixelsToBuffer(IntBuffer.wrap(pixels));
+        bitmap.recycle();
+        return pixels;
+    }
+    
+    /**
+     * Pixel as copyPixelsToBuffer lays it out: RGBA in memory, little-endian ints
+     */
+    private static int pixel(int alpha, int c0, int c1, int c2) {
+        return c0 | (c1 << 8) | (c2 << 16) | (alpha << 24);
+    }
+    
+    private static int alpha(int pixel) {
+        return pixel >>> 24;
+    }
+    
+    private static void assertPremultiplied(int pixel) {
+        int alpha = alpha(pixel);
+        for (int shift = 0; shift < 24; shift += 8) {
+            assertTrue(Integer.toHexString(pixel), ((pixel >>> shift) & 0xff) <= alpha);
+        }
+    }
+}
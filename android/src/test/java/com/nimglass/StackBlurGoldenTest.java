@@ -0,0 +1,195 @@
+package com.nimglass;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.IntBuffer;
+import java.util.Locale;
+
+/**
+ * StackBlurGoldenTest - Java reference output for the native stack blur
+ * 
+ * Blurs seeded random pixels with PixelBuffer.stackBlur and checks the
+ * output hashes in src/test/cpp/stack_blur_golden.txt, which the host
+ * test (src/test/cpp) checks the native kernel against. After changing
+ * the Java kernel on purpose, regenerate the file with
+ * ./gradlew test -Dnimglass.updateGolden=true.
+ * 
+ * The alpha column picks the input: random translucent pixels, opaque
+ * pixels, or an alpha edge (opaque left half, transparent right half),
+ * which pins down how coverage and premultiplied colour blur together.
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = 33)
+public class StackBlurGoldenTest {
+    
+    private static final File GOLDEN = new File("src/test/cpp/stack_blur_golden.txt");
+    
+    // Input alpha: random, opaque, or an opaque left half over a transparent right half
+    static final int ALPHA_RANDOM = 0;
+    static final int ALPHA_OPAQUE = 1;
+    static final int ALPHA_EDGE = 2;
+    
+    // width, height, radius, passes, alpha
+    private static final int[][] CASES = {
+            {1, 1, 1, 1, 0},
+            {1, 17, 3, 1, 0},
+            {17, 1, 3, 1, 0},
+            {2, 2, 25, 1, 0},
+            {5, 3, 9, 1, 1},
+            {31, 23, 1, 1, 0},
+            {31, 23, 2, 1, 0},
+            {29, 31, 3, 1, 0},
+            {29, 31, 4, 1, 0},
+            {40, 27, 5, 1, 0},
+            {40, 27, 6, 1, 0},
+            {33, 41, 7, 1, 0},
+            {33, 41, 8, 1, 0},
+            {48, 36, 9, 1, 0},
+            {48, 36, 10, 1, 0},
+            {37, 50, 11, 1, 0},
+            {37, 50, 12, 1, 0},
+            {52, 44, 13, 1, 0},
+            {52, 44, 14, 1, 0},
+            {45, 57, 15, 1, 0},
+            {45, 57, 16, 1, 0},
+            {61, 39, 17, 1, 0},
+            {61, 39, 18, 1, 0},
+            {43, 64, 19, 1, 0},
+            {43, 64, 20, 1, 0},
+            {66, 47, 21, 1, 0},
+            {66, 47, 22, 1, 0},
+            {49, 70, 23, 1, 0},
+            {49, 70, 24, 1, 0},
+            {72, 53, 25, 1, 0},
+            {64, 48, 8, 3, 0},
+            {64, 48, 25, 3, 0},
+            {80, 60, 12, 1, 1},
+            {80, 60, 25, 2, 1},
+            {40, 24, 1, 1, 2},
+            {40, 24, 8, 1, 2},
+            {41, 30, 25, 2, 2},
+    };
+    
+    @Test
+    public void javaKernelMatchesGoldenHashes() throws IOException {
+        if (Boolean.getBoolean("nimglass.updateGolden")) {
+            writeGolden();
+            return;
+        }
+        
+        int cases = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(GOLDEN))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.trim().split("\\s+");
+                long seed = Long.parseLong(fields[0]);
+                int width = Integer.parseInt(fields[1]);
+                int height = Integer.parseInt(fields[2]);
+                int radius = Integer.parseInt(fields[3]);
+                int passes = Integer.parseInt(fields[4]);
+                int alpha = Integer.parseInt(fields[5]);
+                long expected = Long.parseUnsignedLong(fields[6], 16);
+                
+                assertEquals(line, expected, blurHash((int) seed, width, height, radius, passes, alpha));
+                cases++;
+            }
+        }
+        assertFalse("no cases in " + GOLDEN, cases == 0);
+    }
+    
+    private static void writeGolden() throws IOException {
+        try (PrintWriter writer = new PrintWriter(GOLDEN, "UTF-8")) {
+            writer.println("# PixelBuffer.stackBlur reference output (StackBlurGoldenTest)");
+            writer.println("# seed width height radius passes alpha fnv1a64(output RGBA bytes)");
+            writer.println("# alpha: 0 random, 1 opaque, 2 opaque left half over transparent right half");
+            for (int i = 0; i < CASES.length; i++) {
+                int[] c = CASES[i];
+                int seed = 0x9e3779b9 * (i + 1);
+                writer.println(String.format(Locale.US, "%d %d %d %d %d %d %016x",
+                        seed & 0xffffffffL, c[0], c[1], c[2], c[3], c[4],
+                        blurHash(seed, c[0], c[1], c[2], c[3], c[4])));
+            }
+        }
+    }
+    
+    /**
+     * Hash of the Java kernel's output for one case
+     */
+    static long blurHash(int seed, int width, int height, int radius, int passes, int alpha) {
+        int[] pixels = randomPixels(seed, width, height, alpha);
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.copyPixelsFromBuffer(IntBuffer.wrap(pixels));
+        
+        PixelBuffer buffer = new PixelBuffer();
+        buffer.read(bitmap);
+        for (int i = 0; i < passes; i++) {
+            buffer.stackBlur(radius);
+        }
+        buffer.write(bitmap);
+        
+        bitmap.copyPixelsToBuffer(IntBuffer.wrap(pixels));
+        bitmap.recycle();
+        return hash(pixels);
+    }
+    
+    /**
+     * Premultiplied pixels from xorshift32, byte for byte what stack_blur_test.c
+     * generates (RGBA in memory, i.e. little-endian ints)
+     */
+    static int[] randomPixels(int seed, int width, int height, int alphaMode) {
+        int[] state = {seed};
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            int alpha = alphaMode == ALPHA_RANDOM ? next(state) & 0xff : 255;
+            int c0 = (int) ((next(state) & 0xffffffffL) % (alpha + 1));
+            int c1 = (int) ((next(state) & 0xffffffffL) % (alpha + 1));
+            int c2 = (int) ((next(state) & 0xffffffffL) % (alpha + 1));
+            pixels[i] = c0 | (c1 << 8) | (c2 << 16) | (alpha << 24);
+            if (alphaMode == ALPHA_EDGE && i % width >= width / 2) {
+                pixels[i] = 0;
+            }
+        }
+        return pixels;
+    }
+    
+    private static int next(int[] state) {
+        int x = state[0];
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        state[0] = x;
+        return x;
+    }
+    
+    /**
+     * FNV-1a 64 over the pixels' bytes in memory order
+     */
+    static long hash(int[] pixels) {
+        long hash = 0xcbf29ce484222325L;
+        for (int pixel : pixels) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                hash ^= (pixel >>> shift) & 0xff;
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+}
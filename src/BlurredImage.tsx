@@ -0,0 +1,69 @@
+import React from 'react';
+import { Image, Platform, UIManager } from 'react-native';
+import { BlurredImageProps } from './types';
+import { getBlurRadius } from './GlassView';
+import NimGlassBlurredImageViewNativeComponent from './NimGlassBlurredImageViewNativeComponent';
+
+// Native component for pre-blurred images (when available)
+const NATIVE_COMPONENT_NAME = 'NimGlassBlurredImageView';
+
+// Fabric renderer (New Architecture) is active
+const isFabricEnabled = (globalThis as any).nativeFabricUIManager != null;
+
+// Check if native component is available
+const isNativeBlurredImageAvailable =
+  Platform.OS === 'android' &&
+  (isFabricEnabled ||
+    UIManager.getViewManagerConfig?.(NATIVE_COMPONENT_NAME) != null);
+
+/**
+ * BlurredImage - A static image shown blurred
+ * 
+ * For known backdrops (profile headers, album art) there is nothing live
+ * to capture: on Android the image is decoded and blurred once off the UI
+ * thread and cached on disk, so later mounts show it without blurring
+ * again. Elsewhere it falls back to React Native's Image blurRadius.
+ * 
+ * @example
+ * ```tsx
+ * <BlurredImage
+ *   source={{ uri: album.artworkUrl }}
+ *   blurIntensity="heavy"
+ *   style={StyleSheet.absoluteFill}
+ * />
+ * ```
+ */
+export const BlurredImage: React.FC<BlurredImageProps> = ({
+  source,
+  blurIntensity = 'medium',
+  downsampleFactor = 4,
+  resizeMode = 'cover',
+  style,
+}) => {
+  const blurRadius = getBlurRadius(blurIntensity);
+
+  if (isNativeBlurredImageAvailable) {
+    const resolved = Image.resolveAssetSource(source);
+    return (
+      <NimGlassBlurredImageViewNativeComponent
+        style={style}
+        sourceUri={resolved?.uri}
+        blurRadius={blurRadius}
+        downsampleFactor={downsampleFactor}
+        resizeMode={resizeMode}
+      />
+    );
+  }
+
+  // Fallback: React Native's built-in image blur
+  return (
+    <Image
+      source={source}
+      blurRadius={blurRadius}
+      resizeMode={resizeMode}
+      style={style}
+    />
+  );
+};
+
+export default BlurredImage;
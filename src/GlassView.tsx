@@ -3,39 +3,36 @@ import {
   View,
   StyleSheet,
   Platform,
-  requireNativeComponent,
   UIManager,
-  ViewProps,
 } from 'react-native';
-import { GlassViewProps, BlurIntensity } from './types';
+import {
+  GlassViewProps,
+  BlurIntensity,
+  ProgressiveBlur,
+  ProgressiveBlurDirection,
+} from './types';
+import NimGlassBlurViewNativeComponent from './NimGlassBlurViewNativeComponent';
 
 // Native component for blur (when available)
 const NATIVE_COMPONENT_NAME = 'NimGlassBlurView';
 
+// Fabric renderer (New Architecture) is active
+const isFabricEnabled = (globalThis as any).nativeFabricUIManager != null;
+
 // Check if native component is available
-const isNativeBlurAvailable = 
+const isNativeBlurAvailable =
+  (isFabricEnabled && Platform.OS === 'android') ||
   UIManager.getViewManagerConfig?.(NATIVE_COMPONENT_NAME) != null;
 
-// Native blur view props
-interface NativeBlurViewProps extends ViewProps {
-  blurRadius: number;
-  tintColor: string;
-  tintOpacity: number;
-  cornerRadius: number;
-  downsampleFactor: number;
-  showInsetShadow: boolean;
-  insetShadowBlur: number;
-}
-
-// Native blur view component
+// Native blur view component (codegen spec, falls back to the legacy view manager)
 const NativeBlurView = isNativeBlurAvailable
-  ? requireNativeComponent<NativeBlurViewProps>(NATIVE_COMPONENT_NAME)
+  ? NimGlassBlurViewNativeComponent
   : null;
 
 /**
  * Convert blur intensity preset to numeric value
  */
-const getBlurRadius = (intensity: BlurIntensity): number => {
+export const getBlurRadius = (intensity: BlurIntensity): number => {
   if (typeof intensity === 'number') {
     return Math.max(1, Math.min(100, intensity));
   }
@@ -54,6 +51,39 @@ const getBlurRadius = (intensity: BlurIntensity): number => {
   }
 };
 
+/**
+ * Native progressive blur props: blurRadius applies at the start edge,
+ * which must be blurred (an unblurred start flips the direction)
+ */
+const getProgressiveBlur = (
+  progressiveBlur: ProgressiveBlur
+): {
+  blurRadius: number;
+  progressiveEndRadius: number;
+  progressiveDirection: ProgressiveBlurDirection;
+} => {
+  const direction = progressiveBlur.direction ?? 'toBottom';
+  if (progressiveBlur.start === 0) {
+    const opposite: Record<ProgressiveBlurDirection, ProgressiveBlurDirection> = {
+      toBottom: 'toTop',
+      toTop: 'toBottom',
+      toRight: 'toLeft',
+      toLeft: 'toRight',
+    };
+    return {
+      blurRadius: getBlurRadius(progressiveBlur.end),
+      progressiveEndRadius: 0,
+      progressiveDirection: opposite[direction],
+    };
+  }
+  return {
+    blurRadius: getBlurRadius(progressiveBlur.start),
+    progressiveEndRadius:
+      progressiveBlur.end === 0 ? 0 : getBlurRadius(progressiveBlur.end),
+    progressiveDirection: direction,
+  };
+};
+
 /**
  * Get tint color from preset
  */
@@ -101,6 +131,7 @@ const getTintColor = (tint: string, customColor?: string): string => {
  */
 export const GlassView: React.FC<GlassViewProps> = ({
   blurIntensity = 'medium',
+  progressiveBlur,
   tint = 'light',
   tintColor,
   tintOpacity = 0.15,
@@ -109,12 +140,20 @@ export const GlassView: React.FC<GlassViewProps> = ({
   borderColor = 'rgba(255, 255, 255, 0.2)',
   gradientBorder = false,
   downsampleFactor = 4,
+  maxBlurPixels = 0,
+  opaqueBackdrop = false,
+  debugOverlay = false,
   showInsetShadow = false,
   insetShadowBlur = 12,
   style,
   children,
 }) => {
-  const blurRadius = getBlurRadius(blurIntensity);
+  const progressive = progressiveBlur
+    ? getProgressiveBlur(progressiveBlur)
+    : null;
+  const blurRadius = progressive
+    ? progressive.blurRadius
+    : getBlurRadius(blurIntensity);
   const resolvedTintColor = getTintColor(tint, tintColor);
   
   // Container styles
@@ -136,10 +175,15 @@ export const GlassView: React.FC<GlassViewProps> = ({
         <NativeBlurView
           style={StyleSheet.absoluteFill}
           blurRadius={blurRadius}
+          progressiveEndRadius={progressive?.progressiveEndRadius ?? -1}
+          progressiveDirection={progressive?.progressiveDirection}
           tintColor={resolvedTintColor}
           tintOpacity={tintOpacity}
           cornerRadius={borderRadius}
           downsampleFactor={downsampleFactor}
+          maxBlurPixels={maxBlurPixels}
+          opaqueBackdrop={opaqueBackdrop}
+          debugOverlay={debugOverlay}
           showInsetShadow={showInsetShadow}
           insetShadowBlur={insetShadowBlur}
         />
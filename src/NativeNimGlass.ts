@@ -0,0 +1,15 @@
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+
+/**
+ * Codegen spec for the NimGlass native module (TurboModule)
+ *
+ * Keep in sync with NimGlassModule on Android.
+ */
+export interface Spec extends TurboModule {
+  supportsHardwareBlur(): boolean;
+  getApiLevel(): number;
+  prewarm(): Promise<void>;
+}
+
+export default TurboModuleRegistry.get<Spec>('NimGlass');
@@ -0,0 +1,46 @@
+import type * as React from 'react';
+import type { HostComponent, ViewProps } from 'react-native';
+import type {
+  Float,
+  Int32,
+  WithDefault,
+} from 'react-native/Libraries/Types/CodegenTypes';
+import codegenNativeComponent from 'react-native/Libraries/Utilities/codegenNativeComponent';
+import codegenNativeCommands from 'react-native/Libraries/Utilities/codegenNativeCommands';
+
+/**
+ * Codegen spec for the Android NimGlassBlurView (Fabric component)
+ *
+ * Keep in sync with NimGlassBlurViewManager on Android.
+ */
+export interface NativeProps extends ViewProps {
+  blurRadius?: WithDefault<Float, 25>;
+  tintColor?: string;
+  tintOpacity?: WithDefault<Float, 0.15>;
+  cornerRadius?: WithDefault<Float, 16>;
+  downsampleFactor?: WithDefault<Int32, 4>;
+  maxBlurPixels?: WithDefault<Int32, 0>;
+  showInsetShadow?: WithDefault<boolean, false>;
+  insetShadowBlur?: WithDefault<Float, 12>;
+  progressiveEndRadius?: WithDefault<Float, -1>;
+  progressiveDirection?: WithDefault<
+    'toBottom' | 'toTop' | 'toRight' | 'toLeft',
+    'toBottom'
+  >;
+  opaqueBackdrop?: WithDefault<boolean, false>;
+  debugOverlay?: WithDefault<boolean, false>;
+}
+
+type NimGlassBlurViewType = HostComponent<NativeProps>;
+
+interface NativeCommands {
+  refresh: (viewRef: React.ElementRef<NimGlassBlurViewType>) => void;
+}
+
+export const Commands: NativeCommands = codegenNativeCommands<NativeCommands>({
+  supportedCommands: ['refresh'],
+});
+
+export default codegenNativeComponent<NativeProps>('NimGlassBlurView', {
+  excludedPlatforms: ['iOS'],
+}) as NimGlassBlurViewType;
@@ -0,0 +1,23 @@
+import type { HostComponent, ViewProps } from 'react-native';
+import type {
+  Float,
+  Int32,
+  WithDefault,
+} from 'react-native/Libraries/Types/CodegenTypes';
+import codegenNativeComponent from 'react-native/Libraries/Utilities/codegenNativeComponent';
+
+/**
+ * Codegen spec for the Android NimGlassBlurredImageView (Fabric component)
+ *
+ * Keep in sync with NimGlassBlurredImageViewManager on Android.
+ */
+export interface NativeProps extends ViewProps {
+  sourceUri?: string;
+  blurRadius?: WithDefault<Float, 25>;
+  downsampleFactor?: WithDefault<Int32, 4>;
+  resizeMode?: WithDefault<'cover' | 'contain' | 'stretch', 'cover'>;
+}
+
+export default codegenNativeComponent<NativeProps>('NimGlassBlurredImageView', {
+  excludedPlatforms: ['iOS'],
+}) as HostComponent<NativeProps>;
@@ -11,6 +11,10 @@
 export { GlassView } from './GlassView';
 export { InsetShadow } from './InsetShadow';
 export { GlassCard } from './GlassCard';
+export { BlurredImage } from './BlurredImage';
+
+// Utilities
+export { prewarm } from './prewarm';
 
 // Types
 export type {
@@ -18,7 +22,10 @@ export type {
   InsetShadowProps,
   InsetShadowOffset,
   GlassCardProps,
+  BlurredImageProps,
   BlurIntensity,
+  ProgressiveBlur,
+  ProgressiveBlurDirection,
   GlassTint,
   GlassCardVariant,
   NativeBlurModule,
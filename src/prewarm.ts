@@ -0,0 +1,23 @@
+import { Platform } from 'react-native';
+import NativeNimGlass from './NativeNimGlass';
+
+/**
+ * Warm up the native blur engine in the background
+ *
+ * Call early (e.g. while the splash screen is visible) so the first
+ * GlassView does not pay for blur engine setup during its first frame.
+ * Resolves immediately where no warm-up is needed (iOS).
+ *
+ * @example
+ * ```tsx
+ * prewarm().then(() => setReady(true));
+ * ```
+ */
+export const prewarm = (): Promise<void> => {
+  if (Platform.OS !== 'android' || NativeNimGlass == null) {
+    return Promise.resolve();
+  }
+  return NativeNimGlass.prewarm();
+};
+
+export default prewarm;
@@ -1,4 +1,4 @@
-import { ViewStyle } from 'react-native';
+import { ImageSourcePropType, ImageStyle, ViewStyle } from 'react-native';
 
 /**
  * Blur intensity presets
@@ -10,6 +10,33 @@ export type BlurIntensity = 'light' | 'medium' | 'heavy' | 'ultra' | number;
  */
 export type GlassTint = 'light' | 'dark' | 'extraLight' | 'chromeMaterial' | 'custom';
 
+/**
+ * Edge where a progressive blur ends (it starts at the opposite edge)
+ */
+export type ProgressiveBlurDirection = 'toBottom' | 'toTop' | 'toRight' | 'toLeft';
+
+/**
+ * Blur that changes along a gradient, e.g. strong at the top edge and
+ * none at the bottom
+ */
+export interface ProgressiveBlur {
+  /**
+   * Blur intensity at the start edge (0 = unblurred)
+   */
+  start: BlurIntensity;
+
+  /**
+   * Blur intensity at the end edge (0 = unblurred)
+   */
+  end: BlurIntensity;
+
+  /**
+   * Direction from the start edge to the end edge
+   * @default 'toBottom'
+   */
+  direction?: ProgressiveBlurDirection;
+}
+
 /**
  * Props for GlassView component
  */
@@ -20,6 +47,13 @@ export interface GlassViewProps {
    */
   blurIntensity?: BlurIntensity;
 
+  /**
+   * Vary the blur along a gradient instead (Android; overrides blurIntensity).
+   * One capture is blurred once into a few levels that are blended across
+   * the view, so it costs about as much as a single strong blur.
+   */
+  progressiveBlur?: ProgressiveBlur;
+
   /**
    * Tint color preset or custom color
    * @default 'light'
@@ -74,6 +108,33 @@ export interface GlassViewProps {
    */
   downsampleFactor?: number;
 
+  /**
+   * Pixel budget for the captured backdrop (Android). The capture is
+   * scaled down, by a fractional factor, until it fits, so blur cost per
+   * view is the same on every screen size and density; small views are
+   * captured at full resolution. downsampleFactor still sets how strong
+   * the blur looks. 0 disables the budget.
+   * @default 0
+   */
+  maxBlurPixels?: number;
+
+  /**
+   * Declare that the content behind the glass is fully opaque (Android).
+   * On devices without RenderScript, captures and blurs in 16-bit RGB_565:
+   * half the bitmap memory and bandwidth, no alpha arithmetic. Translucent
+   * backdrops lose alpha. RenderScript keeps blurring in ARGB_8888, which
+   * it handles faster.
+   * @default false
+   */
+  opaqueBackdrop?: boolean;
+
+  /**
+   * Draw the last capture, blur and draw times and the blur engine
+   * on top of the view (Android, for profiling on device)
+   * @default false
+   */
+  debugOverlay?: boolean;
+
   /**
    * Show built-in inset shadow on the glass view
    * @default false
@@ -207,6 +268,39 @@ export interface GlassCardProps {
   children?: React.ReactNode;
 }
 
+/**
+ * Props for BlurredImage component
+ */
+export interface BlurredImageProps {
+  /**
+   * Image to show blurred - remote URI, local file or bundled asset
+   */
+  source: ImageSourcePropType;
+
+  /**
+   * Blur intensity - preset string or number 1-100
+   * @default 'medium'
+   */
+  blurIntensity?: BlurIntensity;
+
+  /**
+   * Downsample factor for blur performance (Android)
+   * @default 4
+   */
+  downsampleFactor?: number;
+
+  /**
+   * How the blurred image fits its frame
+   * @default 'cover'
+   */
+  resizeMode?: 'cover' | 'contain' | 'stretch';
+
+  /**
+   * Image style
+   */
+  style?: ImageStyle;
+}
+
 /**
  * Native blur module interface
  */